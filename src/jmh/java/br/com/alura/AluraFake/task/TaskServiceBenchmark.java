@@ -0,0 +1,120 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Option validation and entity to response conversion (TaskRules, the part of TaskService with no collaborators) and
+// JSON serialization of task responses, without Spring or a database.
+// Run with: mvn -Pjmh test -Djmh.args="TaskServiceBenchmark -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Options {
+
+        // The API accepts at most 5 options, and multiple choice needs at least 3
+        @Param({"3", "5"})
+        public int optionCount;
+
+        public String statement;
+        public List<TaskOptionRequest> singleChoice;
+        public List<TaskOptionRequest> multipleChoice;
+
+        @Setup
+        public void setUp() {
+            statement = "  Qual das alternativas descreve melhor o Java?  ";
+            singleChoice = new ArrayList<>();
+            multipleChoice = new ArrayList<>();
+            for (int i = 0; i < optionCount; i++) {
+                singleChoice.add(new TaskOptionRequest(" Alternativa " + i + " ", i == 0));
+                multipleChoice.add(new TaskOptionRequest(" Alternativa " + i + " ", i < optionCount - 1));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Tasks {
+
+        @Param({"10", "1000"})
+        public int taskCount;
+
+        @Param({"3", "5"})
+        public int optionCount;
+
+        public List<Task> tasks;
+        public List<TaskResponse> responses;
+        public ObjectMapper objectMapper;
+
+        @Setup
+        public void setUp() {
+            tasks = new ArrayList<>();
+            long optionId = 1;
+            for (int i = 1; i <= taskCount; i++) {
+                Task task = new Task(1L, "Enunciado da atividade " + i, i, Type.MULTIPLE_CHOICE);
+                task.setId((long) i);
+                task.setCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(i));
+                List<TaskOption> options = new ArrayList<>();
+                for (int j = 0; j < optionCount; j++) {
+                    TaskOption option = new TaskOption("Alternativa " + j, j < optionCount - 1, task);
+                    option.setId(optionId++);
+                    options.add(option);
+                }
+                task.setOptions(options);
+                tasks.add(task);
+            }
+            responses = tasks.stream().map(TaskRules::toResponse).toList();
+            // Configured the way Spring Boot configures the mapper used by the controllers
+            objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+
+    @Benchmark
+    public void validateCommonOptionRules(Options options) {
+        TaskRules.validateCommonOptionRules(options.singleChoice, options.statement);
+    }
+
+    @Benchmark
+    public void validateSingleChoiceRules(Options options) {
+        TaskRules.validateSingleChoiceRules(options.singleChoice, options.statement);
+    }
+
+    @Benchmark
+    public void validateMultipleChoiceRules(Options options) {
+        TaskRules.validateMultipleChoiceRules(options.multipleChoice, options.statement);
+    }
+
+    @Benchmark
+    public void convertToTaskResponse(Tasks tasks, Blackhole blackhole) {
+        for (Task task : tasks.tasks) {
+            blackhole.consume(TaskRules.toResponse(task));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTaskResponses(Tasks tasks) throws JsonProcessingException {
+        return tasks.objectMapper.writeValueAsBytes(tasks.responses);
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.alura.AluraFake.config;
+
+import br.com.alura.AluraFake.infra.ReservedConnectionDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class DataSourceConfiguration {
+
+    @Bean
+    public static BeanPostProcessor reservedConnectionDataSourcePostProcessor(Environment environment) {
+        return new ReservedConnectionPostProcessor(environment.getProperty("datasource.reserve-pool-size", Integer.class, 2));
+    }
+
+    // Ordered, so it wraps the pool itself before the unordered slow-log proxy does: statements on reserve
+    // connections are still timed and counted
+    private record ReservedConnectionPostProcessor(int reservePoolSize) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource pool)) {
+                return bean;
+            }
+            return new ReservedConnectionDataSource(pool, reservePoolSize);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
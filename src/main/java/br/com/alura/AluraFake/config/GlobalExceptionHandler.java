@@ -5,7 +5,9 @@ import br.com.alura.AluraFake.exception.ErrorResponse;
 import br.com.alura.AluraFake.exception.InstructorNotFoundException;
 import br.com.alura.AluraFake.exception.InvalidCourseStateException;
 import br.com.alura.AluraFake.exception.UserNotInstructorException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -38,6 +40,12 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(ex.getMessage());
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        return new ErrorResponse("Course was modified concurrently, please try again");
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationError(IllegalArgumentException ex) {
@@ -57,6 +65,13 @@ public class GlobalExceptionHandler {
         return new ErrorResponse(errorMessage);
     }
 
+    // Otherwise caught by the generic handler below; POST /user/import only accepts CSV and NDJSON bodies
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    @ResponseStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+    public ErrorResponse handleUnsupportedMediaType(HttpMediaTypeNotSupportedException ex) {
+        return new ErrorResponse("Content type not supported, expected one of " + ex.getSupportedMediaTypes());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleGenericError(Exception ex) {
@@ -0,0 +1,43 @@
+package br.com.alura.AluraFake.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.stream.StreamSupport;
+
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class HibernateCacheConfiguration {
+
+    static final URI CACHE_CONFIG = URI.create("classpath:hibernate-cache.conf");
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(CACHE_CONFIG, getClass().getClassLoader());
+    }
+
+    // Hibernate builds its regions on this manager instead of creating its own, so the meters below see them
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    // Hit, miss, put and eviction counts of every region, exposed as cache.* meters tagged with the region name.
+    // Depends on the EntityManagerFactory so that the regions exist when they are bound.
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager, EntityManagerFactory entityManagerFactory) {
+        return registry -> StreamSupport.stream(hibernateCacheManager.getCacheNames().spliterator(), false)
+                .map(name -> hibernateCacheManager.getCache(name))
+                .forEach(cache -> JCacheMetrics.monitor(registry, cache));
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.alura.AluraFake.config;
+
+import br.com.alura.AluraFake.infra.DatabaseRoundTrips;
+import br.com.alura.AluraFake.infra.DatabaseRoundTripsFilter;
+import br.com.alura.AluraFake.infra.SlowLogProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Every statement Hibernate prepares and executes goes through the counters behind the per-request metrics
+    @Bean
+    public HibernatePropertiesCustomizer databaseRoundTripsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new DatabaseRoundTrips());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, DatabaseRoundTrips.ExecutionTimer.class.getName());
+        };
+    }
+
+    @Bean
+    public DatabaseRoundTripsFilter databaseRoundTripsFilter(MeterRegistry meterRegistry,
+                                                             @Value("${db.round-trips.headers:false}") boolean headers,
+                                                             SlowLogProperties slowLogProperties) {
+        return new DatabaseRoundTripsFilter(meterRegistry, headers, slowLogProperties.requestThreshold());
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.alura.AluraFake.config;
+
+import br.com.alura.AluraFake.infra.SlowLogProperties;
+import br.com.alura.AluraFake.infra.SlowQueryLog;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(SlowLogProperties.class)
+public class SlowLogConfiguration {
+
+    // Wraps the pool so every execution is timed; the proxy unwraps to the HikariDataSource for pool metrics
+    @Bean
+    public static BeanPostProcessor slowQueryLogDataSourcePostProcessor(ObjectProvider<SlowLogProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                SlowLogProperties slowLog = properties.getObject();
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .listener(new SlowQueryLog(slowLog.queryThreshold(), slowLog.parameterValues()))
+                        .build();
+            }
+        };
+    }
+}
@@ -1,25 +1,52 @@
 package br.com.alura.AluraFake.course;
 
+import br.com.alura.AluraFake.task.Type;
 import br.com.alura.AluraFake.user.User;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.util.Assert;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course")
+@Table(indexes = {
+        @Index(name = "idx_course_instructor_status", columnList = "instructor_id, status"),
+        @Index(name = "idx_course_title", columnList = "title")
+})
+// The instructor is only fetched by queries that ask for this graph; everything else gets a proxy holding its id
+@NamedEntityGraph(name = Course.WITH_INSTRUCTOR, attributeNodes = @NamedAttributeNode("instructor"))
 public class Course {
 
+    public static final String WITH_INSTRUCTOR = "Course.withInstructor";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private LocalDateTime createdAt = LocalDateTime.now();
     private String title;
     private String description;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User instructor;
     @Enumerated(EnumType.STRING)
     private Status status;
     private LocalDateTime publishedAt;
+    // Optimistic lock; the native counter update bumps it too, so a stale copy can never write counters back
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+    // Denormalized task counters, kept in step by TaskService: reports read the total, publishing checks every type
+    @ColumnDefault("0")
+    private int taskCount;
+    @ColumnDefault("0")
+    private int openTextTaskCount;
+    @ColumnDefault("0")
+    private int singleChoiceTaskCount;
+    @ColumnDefault("0")
+    private int multipleChoiceTaskCount;
 
     @Deprecated
     public Course(){}
@@ -36,6 +63,10 @@ public class Course {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -64,6 +95,18 @@ public class Course {
         return publishedAt;
     }
 
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public int getTaskCount(Type type) {
+        return switch (type) {
+            case OPEN_TEXT -> openTextTaskCount;
+            case SINGLE_CHOICE -> singleChoiceTaskCount;
+            case MULTIPLE_CHOICE -> multipleChoiceTaskCount;
+        };
+    }
+
     public void setAsPublished(){
         this.status = Status.PUBLISHED;
         this.publishedAt = LocalDateTime.now();
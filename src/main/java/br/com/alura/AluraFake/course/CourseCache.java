@@ -0,0 +1,36 @@
+package br.com.alura.AluraFake.course;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Explicit invalidation of single Course entries in the second-level cache, for writes Hibernate does not track
+@Component
+public class CourseCache {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CourseCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Dropped only after commit: evicting earlier would let a load in the meantime cache the old row again
+    public void evictOnCommit(Long courseId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(courseId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(courseId);
+            }
+        });
+    }
+
+    private void evict(Long courseId) {
+        entityManagerFactory.getCache().evict(Course.class, courseId);
+    }
+}
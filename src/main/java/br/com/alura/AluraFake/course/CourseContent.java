@@ -0,0 +1,48 @@
+package br.com.alura.AluraFake.course;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+// Ready-to-write representations of a published course snapshot, encoded once and served as is.
+// gzip is null when compressing would not make the payload smaller.
+public record CourseContent(byte[] json, byte[] gzip, String etag) {
+
+    public static CourseContent of(byte[] json) {
+        byte[] gzip = compress(json);
+        return new CourseContent(json, gzip.length < json.length ? gzip : null, digest(json));
+    }
+
+    // Bytes held in memory, used to bound the snapshot cache
+    public int size() {
+        return json.length + (gzip == null ? 0 : gzip.length);
+    }
+
+    // Strong validators differ per representation, so the compressed body carries its own
+    public String gzipEtag() {
+        return etag + "-gzip";
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String digest(byte[] json) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.exception.CourseNotFoundException;
+import br.com.alura.AluraFake.exception.InvalidCourseStateException;
+import br.com.alura.AluraFake.task.TaskService;
+import br.com.alura.AluraFake.task.dto.response.CourseContentResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import java.io.UncheckedIOException;
+
+@Service
+public class CourseContentService {
+
+    private final CourseSnapshotRepository courseSnapshotRepository;
+    private final CourseRepository courseRepository;
+    private final TaskService taskService;
+    private final CourseWriteGuard courseWriteGuard;
+    private final ObjectMapper objectMapper;
+
+    // Most read snapshots, loaded from course_snapshot and kept already encoded, hashed and compressed, so a hit costs
+    // neither the database nor Jackson. Published content never changes, so entries are only dropped to stay within
+    // course.content.cache-size (json plus gzip bytes); only committed rows are ever loaded. Misses are read outside
+    // the cache, since a loader runs under the map's bin lock and would pin a virtual thread for the whole query.
+    private final Cache<Long, CourseContent> snapshots;
+
+    public CourseContentService(
+            CourseSnapshotRepository courseSnapshotRepository,
+            CourseRepository courseRepository,
+            TaskService taskService,
+            CourseWriteGuard courseWriteGuard,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${course.content.cache-size:64MB}") DataSize cacheSize
+    ) {
+        this.courseSnapshotRepository = courseSnapshotRepository;
+        this.courseRepository = courseRepository;
+        this.taskService = taskService;
+        this.courseWriteGuard = courseWriteGuard;
+        this.objectMapper = objectMapper;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher((Long courseId, CourseContent content) -> content.size())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "course.content");
+    }
+
+    // Serializes the course with its ordered tasks and options; runs inside the publishing transaction
+    public CourseContent createSnapshot(Course course) {
+        CourseContentResponse content = new CourseContentResponse(
+                course.getId(),
+                course.getTitle(),
+                course.getDescription(),
+                course.getPublishedAt(),
+                taskService.findCourseTasks(course.getId())
+        );
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(content);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        courseSnapshotRepository.save(new CourseSnapshot(course.getId(), json));
+        return CourseContent.of(json);
+    }
+
+    public CourseContent getContent(Long courseId) {
+        CourseContent cached = snapshots.getIfPresent(courseId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // A miss that finds no row is not cached; the snapshot built for it below is, once committed
+        return courseSnapshotRepository.findContentByCourseId(courseId)
+                .map(json -> {
+                    CourseContent content = CourseContent.of(json);
+                    snapshots.put(courseId, content);
+                    return content;
+                })
+                .orElseGet(() -> createMissingSnapshot(courseId));
+    }
+
+    // Private helper methods
+
+    // Courses published before snapshots existed get theirs built on first read. Concurrent first reads wait on the
+    // course's stripe and the later ones find the snapshot already there; a build racing on another instance loses on
+    // the primary key, and the winner's snapshot is read instead. Cached once committed.
+    private CourseContent createMissingSnapshot(Long courseId) {
+        CourseContent content;
+        try {
+            content = courseWriteGuard.write(courseId, () -> courseSnapshotRepository.findContentByCourseId(courseId)
+                    .map(CourseContent::of)
+                    .orElseGet(() -> createSnapshot(findPublishedCourse(courseId))));
+        } catch (DataIntegrityViolationException e) {
+            content = courseSnapshotRepository.findContentByCourseId(courseId)
+                    .map(CourseContent::of)
+                    .orElseThrow(() -> e);
+        }
+        snapshots.put(courseId, content);
+        return content;
+    }
+
+    private Course findPublishedCourse(Long courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new CourseNotFoundException(courseId));
+
+        if (!Status.PUBLISHED.equals(course.getStatus())) {
+            throw new InvalidCourseStateException("Course must be PUBLISHED to have its content served");
+        }
+
+        return course;
+    }
+}
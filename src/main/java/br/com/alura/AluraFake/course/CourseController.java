@@ -2,8 +2,14 @@ package br.com.alura.AluraFake.course;
 
 import br.com.alura.AluraFake.task.dto.response.InstructorCoursesReportResponse;
 import br.com.alura.AluraFake.task.dto.response.PublishCourseResponse;
+import br.com.alura.AluraFake.util.Listing;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -12,9 +18,11 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final CourseContentService courseContentService;
 
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, CourseContentService courseContentService) {
         this.courseService = courseService;
+        this.courseContentService = courseContentService;
     }
 
     @PostMapping("/course/new")
@@ -24,9 +32,9 @@ public class CourseController {
     }
 
     @GetMapping("/course/all")
-    public ResponseEntity<List<CourseListItemDTO>> getAllCourses() {
-        List<CourseListItemDTO> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<List<CourseListItemDTO>> getAllCourses(@PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        Slice<CourseListItemDTO> courses = courseService.getAllCourses(pageable);
+        return Listing.ok(courses);
     }
 
     @PostMapping("/course/{id}/publish")
@@ -35,6 +43,24 @@ public class CourseController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/course/{id}/content")
+    public ResponseEntity<byte[]> getCourseContent(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CourseContent content = courseContentService.getContent(id);
+
+        // Bytes are written as is; a matching If-None-Match is answered with 304 by Spring from the ETag alone
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (content.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.eTag(content.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(content.gzip());
+        }
+        return response.eTag(content.etag()).body(content.json());
+    }
+
     @GetMapping("/instructor/{id}/courses")
     public ResponseEntity<InstructorCoursesReportResponse> getInstructorCoursesReport(@PathVariable("id") Long instructorId) {
         InstructorCoursesReportResponse response = courseService.getInstructorCoursesReport(instructorId);
@@ -9,6 +9,14 @@ public class CourseListItemDTO implements Serializable {
     private String description;
     private Status status;
 
+    // Constructor expression of CourseRepository.findListItems
+    public CourseListItemDTO(Long id, String title, String description, Status status) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+    }
+
     public CourseListItemDTO(Course course) {
         this.id = course.getId();
         this.title = course.getTitle();
@@ -1,11 +1,57 @@
 package br.com.alura.AluraFake.course;
 
+import br.com.alura.AluraFake.task.dto.response.CourseReportResponse;
 import br.com.alura.AluraFake.user.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
 
 public interface CourseRepository extends JpaRepository<Course, Long>{
 
+    @EntityGraph(Course.WITH_INSTRUCTOR)
     List<Course> findByInstructor(User instructor);
+
+    // Only the listed columns: neither the instructor nor the counters are loaded. A Slice reads one extra row to
+    // know whether there is a next page, instead of counting the table.
+    @Query("SELECT new br.com.alura.AluraFake.course.CourseListItemDTO(c.id, c.title, c.description, c.status) FROM Course c")
+    Slice<CourseListItemDTO> findListItems(Pageable pageable);
+
+    // Loads the course with its row locked until commit (SELECT ... FOR UPDATE), bypassing the second-level cache
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id = :id")
+    Optional<Course> findByIdForUpdate(@Param("id") Long id);
+
+    // Report rows for every course of an instructor, read from the materialized task counter
+    @Query("SELECT new br.com.alura.AluraFake.task.dto.response.CourseReportResponse(" +
+            "c.id, c.title, c.status, c.publishedAt, c.taskCount) " +
+            "FROM Course c WHERE c.instructor.id = :instructorId ORDER BY c.id")
+    List<CourseReportResponse> findReportByInstructorId(@Param("instructorId") Long instructorId);
+
+    // Adds newly created tasks to the course counters in place, so concurrent inserts never lose an increment.
+    // Native with its own query space: a bulk HQL update would clear the whole course cache region, so the
+    // caller evicts just this course instead (see CourseCache).
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "course_task_counters"))
+    @Query(value = "UPDATE Course SET " +
+            "taskCount = taskCount + :openText + :singleChoice + :multipleChoice, " +
+            "openTextTaskCount = openTextTaskCount + :openText, " +
+            "singleChoiceTaskCount = singleChoiceTaskCount + :singleChoice, " +
+            "multipleChoiceTaskCount = multipleChoiceTaskCount + :multipleChoice, " +
+            "version = version + 1 " +
+            "WHERE id = :courseId", nativeQuery = true)
+    void incrementTaskCounters(@Param("courseId") Long courseId, @Param("openText") int openText,
+                               @Param("singleChoice") int singleChoice, @Param("multipleChoice") int multipleChoice);
 }
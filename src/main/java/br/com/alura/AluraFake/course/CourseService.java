@@ -4,39 +4,50 @@ import br.com.alura.AluraFake.exception.CourseNotFoundException;
 import br.com.alura.AluraFake.exception.InstructorNotFoundException;
 import br.com.alura.AluraFake.exception.InvalidCourseStateException;
 import br.com.alura.AluraFake.exception.UserNotInstructorException;
-import br.com.alura.AluraFake.task.Task;
-import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.infra.TimedOperation;
 import br.com.alura.AluraFake.task.Type;
 import br.com.alura.AluraFake.task.dto.response.CourseReportResponse;
 import br.com.alura.AluraFake.task.dto.response.InstructorCoursesReportResponse;
 import br.com.alura.AluraFake.task.dto.response.PublishCourseResponse;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.user.UserRepository;
+import br.com.alura.AluraFake.util.Listing;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class CourseService {
 
+    // Listing sort keys, each backed by an index
+    static final Set<String> SORTABLE = Set.of("id", "title");
+
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
-    private final TaskRepository taskRepository;
+    private final CourseContentService courseContentService;
+    private final CourseCache courseCache;
+    private final CourseWriteGuard courseWriteGuard;
 
     public CourseService(
             CourseRepository courseRepository,
             UserRepository userRepository,
-            TaskRepository taskRepository
+            CourseContentService courseContentService,
+            CourseCache courseCache,
+            CourseWriteGuard courseWriteGuard
     ) {
         this.courseRepository = courseRepository;
         this.userRepository = userRepository;
-        this.taskRepository = taskRepository;
+        this.courseContentService = courseContentService;
+        this.courseCache = courseCache;
+        this.courseWriteGuard = courseWriteGuard;
     }
 
     @Transactional
+    @TimedOperation(service = "course")
     public Course createCourse(NewCourseDTO newCourse) {
         User instructor = validateAndGetInstructor(newCourse.getEmailInstructor());
         Course course = new Course(newCourse.getTitle(), newCourse.getDescription(), instructor);
@@ -44,40 +55,46 @@ public class CourseService {
         return course;
     }
 
-    public List<CourseListItemDTO> getAllCourses() {
-        return courseRepository.findAll().stream()
-                .map(CourseListItemDTO::new)
-                .toList();
+    @TimedOperation(service = "course")
+    public Slice<CourseListItemDTO> getAllCourses(Pageable pageable) {
+        return courseRepository.findListItems(Listing.sortedBy(pageable, SORTABLE));
     }
 
-    @Transactional
+    @TimedOperation(service = "course")
     public PublishCourseResponse publishCourse(Long courseId) {
-        Course course = findCourseById(courseId);
-        validateCourseCanBePublished(course);
-        validateCourseHasRequiredTasks(courseId);
-        validateTaskSequence(courseId);
-
-        course.setAsPublished();
-        Course publishedCourse = courseRepository.save(course);
-
-        return new PublishCourseResponse(
-                publishedCourse.getId(),
-                publishedCourse.getTitle(),
-                publishedCourse.getStatus(),
-                publishedCourse.getPublishedAt()
-        );
+        // Same guard as task creation: no task can slip in between validation and the snapshot
+        return courseWriteGuard.write(courseId, () -> {
+            Course course = findCourseById(courseId);
+            validateCourseCanBePublished(course);
+            validateTasksForPublishing(course);
+
+            course.setAsPublished();
+            Course publishedCourse = courseRepository.save(course);
+            // The status decides whether tasks are accepted; never let a cached BUILDING copy outlive the publish
+            courseCache.evictOnCommit(courseId);
+            // No task can be added once published, so the content is frozen into its read model now
+            courseContentService.createSnapshot(publishedCourse);
+
+            return new PublishCourseResponse(
+                    publishedCourse.getId(),
+                    publishedCourse.getTitle(),
+                    publishedCourse.getStatus(),
+                    publishedCourse.getPublishedAt()
+            );
+        });
     }
 
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "course")
     public InstructorCoursesReportResponse getInstructorCoursesReport(Long instructorId) {
-        User instructor = validateAndGetInstructorById(instructorId);
-        List<Course> instructorCourses = courseRepository.findByInstructor(instructor);
+        validateAndGetInstructorById(instructorId);
 
-        List<CourseReportResponse> courseReports = instructorCourses.stream()
-                .map(this::buildCourseReport)
-                .collect(Collectors.toList());
+        // Task counts are read from the courses' materialized counters, without touching task; the published total is
+        // counted from the returned rows
+        List<CourseReportResponse> courseReports = courseRepository.findReportByInstructorId(instructorId);
 
-        int totalPublishedCourses = (int) instructorCourses.stream()
-                .filter(course -> Status.PUBLISHED.equals(course.getStatus()))
+        int totalPublishedCourses = (int) courseReports.stream()
+                .filter(report -> Status.PUBLISHED.equals(report.getStatus()))
                 .count();
 
         return new InstructorCoursesReportResponse(courseReports, totalPublishedCourses);
@@ -103,7 +120,7 @@ public class CourseService {
     }
 
     private Course findCourseById(Long courseId) {
-        return courseRepository.findById(courseId)
+        return courseRepository.findByIdForUpdate(courseId)
                 .orElseThrow(() -> new CourseNotFoundException(courseId));
     }
 
@@ -113,50 +130,16 @@ public class CourseService {
         }
     }
 
-    private void validateCourseHasRequiredTasks(Long courseId) {
-        List<Task> tasks = taskRepository.findByCourseId(courseId);
-
-        Set<Type> existingTypes = tasks.stream()
-                .map(Task::getType)
-                .collect(Collectors.toSet());
-
-        Set<Type> requiredTypes = EnumSet.allOf(Type.class);
-
-        if (!existingTypes.containsAll(requiredTypes)) {
-            Set<Type> missingTypes = EnumSet.copyOf(requiredTypes);
-            missingTypes.removeAll(existingTypes);
-
-            throw new InvalidCourseStateException(
-                    "Course must have at least one task of each type. Missing: " + missingTypes
-            );
-        }
-    }
-
-    private void validateTaskSequence(Long courseId) {
-        List<Task> tasks = taskRepository.findByCourseId(courseId);
-
-        if (!tasks.isEmpty()) {
-            List<Integer> orders = tasks.stream()
-                    .map(Task::getOrder)
-                    .sorted()
-                    .toList();
-
-            for (int i = 0; i < orders.size(); i++) {
-                if (!orders.get(i).equals(i + 1)) {
-                    throw new InvalidCourseStateException("Tasks must have continuous sequential order starting from 1");
-                }
+    // The row was just read under lock, and every task write keeps its per-type counters in step, so no task is read
+    private void validateTasksForPublishing(Course course) {
+        EnumSet<Type> missingTypes = EnumSet.noneOf(Type.class);
+        for (Type type : Type.values()) {
+            if (course.getTaskCount(type) == 0) {
+                missingTypes.add(type);
             }
         }
+        if (!missingTypes.isEmpty()) {
+            throw new InvalidCourseStateException("Course must have at least one task of each type. Missing: " + missingTypes);
+        }
     }
-
-    private CourseReportResponse buildCourseReport(Course course) {
-        int taskCount = taskRepository.countByCourseId(course.getId());
-        return new CourseReportResponse(
-                course.getId(),
-                course.getTitle(),
-                course.getStatus(),
-                course.getPublishedAt(),
-                taskCount
-        );
-    }
-}
\ No newline at end of file
+}
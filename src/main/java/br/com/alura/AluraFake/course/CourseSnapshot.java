@@ -0,0 +1,51 @@
+package br.com.alura.AluraFake.course;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+// Serialized content of a published course; written once at publish time and never updated, so it is always new to
+// save(), which persists it instead of selecting the assigned id first to merge it
+@Entity
+@Table(name = "course_snapshot")
+public class CourseSnapshot implements Persistable<Long> {
+
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+    private LocalDateTime createdAt = LocalDateTime.now();
+    @Lob
+    @Column(nullable = false)
+    private byte[] content;
+
+    @Deprecated
+    public CourseSnapshot() {}
+
+    public CourseSnapshot(Long courseId, byte[] content) {
+        this.courseId = courseId;
+        this.content = content;
+    }
+
+    @Override
+    public Long getId() {
+        return courseId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+}
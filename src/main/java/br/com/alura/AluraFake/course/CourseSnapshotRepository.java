@@ -0,0 +1,15 @@
+package br.com.alura.AluraFake.course;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface CourseSnapshotRepository extends JpaRepository<CourseSnapshot, Long> {
+
+    // Raw snapshot bytes of a published course, read without hydrating the entity
+    @Query("SELECT s.content FROM CourseSnapshot s WHERE s.courseId = :courseId")
+    Optional<byte[]> findContentByCourseId(@Param("courseId") Long courseId);
+}
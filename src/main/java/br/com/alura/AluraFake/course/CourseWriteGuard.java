@@ -0,0 +1,89 @@
+package br.com.alura.AluraFake.course;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Serializes writes to the same course inside this instance, while writes to other courses run in parallel.
+// Each course maps to one of a fixed set of lock stripes, so memory stays constant however many courses exist.
+// The lock is taken before the transaction starts: a waiting writer holds no connection and no row lock.
+// Across instances, the writes themselves lock the course row (see TaskRepository.findWriteContext), and
+// @Version on Course and Task rejects anything written from a stale copy.
+@Component
+public class CourseWriteGuard {
+
+    static final int STRIPES = 64;
+    static final int MAX_ATTEMPTS = 3;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration initialBackoff;
+
+    @Autowired
+    public CourseWriteGuard(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this(transactionManager, meterRegistry, Duration.ofMillis(20));
+    }
+
+    CourseWriteGuard(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, Duration initialBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.initialBackoff = initialBackoff;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Runs the work in its own transaction while holding the course's stripe. A concurrency failure (optimistic
+    // conflict, lock timeout, deadlock) rolls the attempt back and the work is run again from scratch, up to
+    // MAX_ATTEMPTS times, with the stripe released during the backoff.
+    public <T> T write(Long courseId, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return writeOnce(courseId, work);
+            } catch (ConcurrencyFailureException e) {
+                String exception = e.getClass().getSimpleName();
+                if (attempt == MAX_ATTEMPTS) {
+                    meterRegistry.counter("course.write.retries.exhausted", "exception", exception).increment();
+                    throw e;
+                }
+                meterRegistry.counter("course.write.retries", "exception", exception).increment();
+                backOff(attempt);
+            }
+        }
+    }
+
+    static int stripeOf(Long courseId) {
+        // Spread the bits first, so ids that differ only in their high bits do not share a stripe
+        int hash = Long.hashCode(courseId);
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private <T> T writeOnce(Long courseId, Supplier<T> work) {
+        ReentrantLock lock = locks[stripeOf(courseId)];
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Exponential backoff with full jitter, so writers that collided do not collide again in lockstep
+    private void backOff(int attempt) {
+        long ceiling = initialBackoff.toMillis() << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry a course write", e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.task.Task;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.util.StatementHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Writes a large synthetic dataset (instructors, their courses, tasks and options) for reproducing performance problems
+// locally. Rows go through batched JDBC inserts, a chunk of courses per transaction; with MySQL the driver rewrites each
+// batch into multi-row INSERTs (rewriteBatchedStatements). Everything is drawn from one seeded random in a fixed order,
+// so the same properties always produce the same rows.
+// Runs at startup when seed.bulk.enabled=true, and does nothing if its first instructor already exists.
+@Component
+@ConditionalOnProperty(prefix = "seed.bulk", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkSeedProperties.class)
+public class BulkDataSeeder implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDataSeeder.class);
+
+    private static final String[] TOPICS = {"Java", "Spring", "JPA", "SQL", "HTTP", "Docker", "Git", "Kotlin",
+            "testes automatizados", "orientação a objetos", "coleções", "streams", "concorrência", "APIs REST"};
+
+    private final BulkSeedProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkDataSeeder(BulkSeedProperties properties, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class, instructorEmail(0));
+        if (existing != null && existing > 0) {
+            log.info("Bulk seed skipped: {} already exists", instructorEmail(0));
+            return;
+        }
+
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        SplittableRandom random = new SplittableRandom(properties.randomSeed());
+        List<Long> instructorIds = transactionTemplate.execute(status -> insertInstructors(random, now));
+
+        // Courses are planned in a fixed order and written a chunk at a time, so memory stays bounded
+        SeedTotals totals = new SeedTotals();
+        List<CoursePlan> chunk = new ArrayList<>();
+        int chunkTasks = 0;
+        for (int instructor = 0; instructor < instructorIds.size(); instructor++) {
+            for (int course = 0; course < properties.coursesPerInstructor(); course++) {
+                CoursePlan plan = planCourse(random, instructorIds.get(instructor), instructor, course);
+                chunk.add(plan);
+                chunkTasks += plan.tasks().size();
+                if (chunkTasks >= properties.batchSize() || chunk.size() >= properties.batchSize()) {
+                    writeChunk(chunk, now, totals);
+                    chunk.clear();
+                    chunkTasks = 0;
+                }
+            }
+        }
+        writeChunk(chunk, now, totals);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long rows = instructorIds.size() + totals.courses + totals.tasks + totals.options;
+        log.info("Bulk seed wrote {} instructors, {} courses ({} published), {} tasks and {} options in {}s ({} rows/s)",
+                instructorIds.size(), totals.courses, totals.published, totals.tasks, totals.options,
+                String.format("%.1f", seconds), Math.round(rows / seconds));
+    }
+
+    static String instructorEmail(int instructor) {
+        return "instrutor" + instructor + "@seed.alura.com.br";
+    }
+
+    private List<Long> insertInstructors(SplittableRandom random, Timestamp now) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int instructor = 0; instructor < properties.instructors(); instructor++) {
+            // Same shape as PasswordGeneration, but drawn from the seeded random
+            String password = String.valueOf(100000 + random.nextInt(900000));
+            rows.add(new Object[] {now, "Instrutor " + instructor, instructorEmail(instructor), "INSTRUCTOR", password});
+        }
+
+        long lastId = maxId("users");
+        batchInsert("INSERT INTO users (createdAt, name, email, role, password) VALUES (?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id > ? ORDER BY id", Long.class, lastId);
+    }
+
+    private CoursePlan planCourse(SplittableRandom random, Long instructorId, int instructor, int course) {
+        String title = "Curso " + instructor + "-" + course;
+        String description = "Curso sintético de " + TOPICS[random.nextInt(TOPICS.length)] + " para testes de escala";
+
+        List<TaskPlan> tasks = new ArrayList<>();
+        for (int order = 1; order <= properties.tasksPerCourse(); order++) {
+            tasks.add(planTask(random, order));
+        }
+
+        // Drawn for every course, so the sequence of draws does not depend on which courses can be published
+        boolean published = random.nextDouble() < properties.publishedShare()
+                && tasks.stream().map(TaskPlan::type).distinct().count() == Type.values().length;
+        return new CoursePlan(instructorId, title, description, published, tasks);
+    }
+
+    private TaskPlan planTask(SplittableRandom random, int order) {
+        Type type = drawType(random);
+        String statement = "Questão " + order + " sobre " + TOPICS[random.nextInt(TOPICS.length)]
+                + ": qual alternativa descreve melhor o conceito apresentado?";
+        if (type == Type.OPEN_TEXT) {
+            return new TaskPlan(type, statement, List.of());
+        }
+
+        // Single choice: one correct option; multiple choice: at least 2 correct and 1 incorrect
+        int minOptions = type == Type.MULTIPLE_CHOICE ? Math.max(properties.minOptions(), 3) : properties.minOptions();
+        int optionCount = random.nextInt(minOptions, Math.max(properties.maxOptions(), minOptions) + 1);
+        int correctCount = type == Type.MULTIPLE_CHOICE ? random.nextInt(2, optionCount) : 1;
+        int firstCorrect = random.nextInt(optionCount);
+        List<OptionPlan> options = new ArrayList<>();
+        for (int option = 0; option < optionCount; option++) {
+            boolean correct = Math.floorMod(option - firstCorrect, optionCount) < correctCount;
+            options.add(new OptionPlan("Alternativa " + (option + 1) + ": " + TOPICS[random.nextInt(TOPICS.length)], correct));
+        }
+        return new TaskPlan(type, statement, options);
+    }
+
+    private Type drawType(SplittableRandom random) {
+        int draw = random.nextInt(properties.openTextWeight() + properties.singleChoiceWeight() + properties.multipleChoiceWeight());
+        if (draw < properties.openTextWeight()) {
+            return Type.OPEN_TEXT;
+        }
+        if (draw < properties.openTextWeight() + properties.singleChoiceWeight()) {
+            return Type.SINGLE_CHOICE;
+        }
+        return Type.MULTIPLE_CHOICE;
+    }
+
+    private void writeChunk(List<CoursePlan> courses, Timestamp now, SeedTotals totals) {
+        if (courses.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> courseRows = new ArrayList<>();
+            int taskCount = 0;
+            int optionCount = 0;
+            for (CoursePlan course : courses) {
+                courseRows.add(new Object[] {now, course.title(), course.description(), course.instructorId(),
+                        (course.published() ? Status.PUBLISHED : Status.BUILDING).name(), course.published() ? now : null,
+                        course.tasks().size(), course.count(Type.OPEN_TEXT), course.count(Type.SINGLE_CHOICE),
+                        course.count(Type.MULTIPLE_CHOICE)});
+                taskCount += course.tasks().size();
+                optionCount += course.tasks().stream().mapToInt(task -> task.options().size()).sum();
+            }
+
+            long lastCourseId = maxId("Course");
+            batchInsert("INSERT INTO Course (createdAt, title, description, instructor_id, status, publishedAt, version, " +
+                    "taskCount, openTextTaskCount, singleChoiceTaskCount, multipleChoiceTaskCount) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)", courseRows);
+            List<Long> courseIds = jdbcTemplate.queryForList("SELECT id FROM Course WHERE id > ? ORDER BY id", Long.class, lastCourseId);
+
+            long taskId = reserveIds("task", "task", taskCount);
+            long optionId = reserveIds("task_option", "task_option", optionCount);
+            List<Object[]> taskRows = new ArrayList<>(taskCount);
+            List<Object[]> optionRows = new ArrayList<>(optionCount);
+            for (int i = 0; i < courses.size(); i++) {
+                List<TaskPlan> tasks = courses.get(i).tasks();
+                for (int order = 1; order <= tasks.size(); order++) {
+                    TaskPlan task = tasks.get(order - 1);
+                    taskRows.add(new Object[] {taskId, courseIds.get(i), task.statement(), StatementHash.of(task.statement()),
+                            order * Task.RANK_GAP, task.type().name(), now});
+                    for (OptionPlan option : task.options()) {
+                        optionRows.add(new Object[] {optionId++, taskId, option.text(), option.correct()});
+                    }
+                    taskId++;
+                }
+            }
+            batchInsert("INSERT INTO task (id, course_id, statement, statement_hash, task_rank, type, version, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, 0, ?)", taskRows);
+            batchInsert("INSERT INTO task_option (id, task_id, option, is_correct) VALUES (?, ?, ?, ?)", optionRows);
+
+            totals.courses += courses.size();
+            totals.published += courses.stream().filter(CoursePlan::published).count();
+            totals.tasks += taskCount;
+            totals.options += optionCount;
+        });
+    }
+
+    // Claims a block of ids from the table generator Hibernate uses for the entity. Hibernate keeps the last id it
+    // handed out in next_val (hibernate.id.generator.stored_last_used), so the block starts right after it and ends
+    // where Hibernate's next allocation will start from
+    private long reserveIds(String sequence, String table, int count) {
+        List<Long> lastUsed = jdbcTemplate.queryForList(
+                "SELECT next_val FROM id_generator WHERE sequence_name = ? FOR UPDATE", Long.class, sequence);
+        if (lastUsed.isEmpty()) {
+            long first = maxId(table) + 1;
+            jdbcTemplate.update("INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)", sequence, first + count - 1);
+            return first;
+        }
+        long first = Math.max(lastUsed.get(0), maxId(table)) + 1;
+        jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ?", first + count - 1, sequence);
+        return first;
+    }
+
+    private long maxId(String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += properties.batchSize()) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + properties.batchSize(), rows.size())));
+        }
+    }
+
+    private record CoursePlan(Long instructorId, String title, String description, boolean published, List<TaskPlan> tasks) {
+
+        int count(Type type) {
+            return (int) tasks.stream().filter(task -> task.type() == type).count();
+        }
+    }
+
+    private record TaskPlan(Type type, String statement, List<OptionPlan> options) {}
+
+    private record OptionPlan(String text, boolean correct) {}
+
+    private static final class SeedTotals {
+        private long courses;
+        private long published;
+        private long tasks;
+        private long options;
+    }
+}
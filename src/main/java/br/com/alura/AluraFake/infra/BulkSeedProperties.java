@@ -0,0 +1,42 @@
+package br.com.alura.AluraFake.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+// Shape of the synthetic dataset written by BulkDataSeeder (seed.bulk.* properties, see application-seed.properties).
+// Task types are drawn by weight; choice tasks get between minOptions and maxOptions options, within each type's limits.
+@ConfigurationProperties(prefix = "seed.bulk")
+public record BulkSeedProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("42") long randomSeed,
+        @DefaultValue("100") int instructors,
+        @DefaultValue("10") int coursesPerInstructor,
+        @DefaultValue("20") int tasksPerCourse,
+        @DefaultValue("1") int openTextWeight,
+        @DefaultValue("1") int singleChoiceWeight,
+        @DefaultValue("1") int multipleChoiceWeight,
+        @DefaultValue("2") int minOptions,
+        @DefaultValue("5") int maxOptions,
+        @DefaultValue("0.5") double publishedShare,
+        @DefaultValue("1000") int batchSize
+) {
+
+    public BulkSeedProperties {
+        if (instructors < 0 || coursesPerInstructor < 0 || tasksPerCourse < 0) {
+            throw new IllegalArgumentException("seed.bulk counts cannot be negative");
+        }
+        if (openTextWeight < 0 || singleChoiceWeight < 0 || multipleChoiceWeight < 0
+                || openTextWeight + singleChoiceWeight + multipleChoiceWeight == 0) {
+            throw new IllegalArgumentException("seed.bulk task type weights must be non-negative and not all zero");
+        }
+        if (minOptions < 2 || maxOptions > 5 || minOptions > maxOptions) {
+            throw new IllegalArgumentException("seed.bulk options must satisfy 2 <= minOptions <= maxOptions <= 5");
+        }
+        if (publishedShare < 0 || publishedShare > 1) {
+            throw new IllegalArgumentException("seed.bulk.published-share must be between 0 and 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("seed.bulk.batch-size must be positive");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.alura.AluraFake.infra;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Counts the SQL statements Hibernate prepares on the current thread between start() and stop(), and how long the
+// database took to execute them. Registered as Hibernate's StatementInspector (see MetricsConfiguration), which sees
+// every statement as it is prepared; a JDBC batch is prepared once, so it counts once, like the single round trip it
+// is. Execution time comes from ExecutionTimer, a session listener Hibernate creates for every session.
+// Threads that never called start(), such as the one writing a streamed response, are not counted.
+public class DatabaseRoundTrips implements StatementInspector {
+
+    private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+
+    public static void start() {
+        CURRENT.set(new Usage());
+    }
+
+    public static Usage current() {
+        Usage usage = CURRENT.get();
+        return usage == null ? new Usage() : usage.copy();
+    }
+
+    public static Usage stop() {
+        Usage usage = current();
+        CURRENT.remove();
+        return usage;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Usage usage = CURRENT.get();
+        if (usage != null) {
+            usage.statements++;
+        }
+        return sql;
+    }
+
+    public static final class Usage {
+
+        private int statements;
+        private long executionNanos;
+
+        public int statements() {
+            return statements;
+        }
+
+        public long executionNanos() {
+            return executionNanos;
+        }
+
+        private Usage copy() {
+            Usage copy = new Usage();
+            copy.statements = statements;
+            copy.executionNanos = executionNanos;
+            return copy;
+        }
+    }
+
+    // Hibernate instantiates one per session (hibernate.session.events.auto); a session is used by one thread at a time
+    public static class ExecutionTimer implements SessionEventListener {
+
+        private long startedAt;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startedAt = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            addElapsed();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startedAt = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            addElapsed();
+        }
+
+        private void addElapsed() {
+            Usage usage = CURRENT.get();
+            if (usage != null) {
+                usage.executionNanos += System.nanoTime() - startedAt;
+            }
+        }
+    }
+}
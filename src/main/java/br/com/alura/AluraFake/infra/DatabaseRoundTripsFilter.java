@@ -0,0 +1,142 @@
+package br.com.alura.AluraFake.infra;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Records how many SQL statements each request sent as "http.server.requests.db.statements", and how long the
+// database took to execute them as "http.server.requests.db.time", tagged like http.server.requests (method, uri
+// template, status), so a regression that adds queries to an endpoint shows up next to its latency.
+// With db.round-trips.headers=true (dev and test profiles) both also go back in the X-DB-Statements and X-DB-Time-Ms
+// response headers. A body is written once the handler is done, so the headers are set just before it starts.
+// Requests slower than slow-log.request-threshold are logged with their statement count and database time.
+// Registered in MetricsConfiguration, so web slice tests without a MeterRegistry leave it out.
+public class DatabaseRoundTripsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseRoundTripsFilter.class);
+
+    static final String SUMMARY = "http.server.requests.db.statements";
+    static final String TIMER = "http.server.requests.db.time";
+    public static final String STATEMENTS_HEADER = "X-DB-Statements";
+    public static final String TIME_HEADER = "X-DB-Time-Ms";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headers;
+    private final long slowRequestNanos;
+
+    public DatabaseRoundTripsFilter(MeterRegistry meterRegistry, boolean headers, Duration slowRequestThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        DatabaseRoundTrips.start();
+        UsageHeadersResponse headersResponse = headers ? new UsageHeadersResponse(response) : null;
+        try {
+            filterChain.doFilter(request, headersResponse == null ? response : headersResponse);
+        } finally {
+            if (headersResponse != null) {
+                headersResponse.addUsageHeaders();
+            }
+            DatabaseRoundTrips.Usage usage = DatabaseRoundTrips.stop();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Tags tags = Tags.of("method", request.getMethod(),
+                    "uri", uri == null ? "UNKNOWN" : uri.toString(),
+                    "status", String.valueOf(response.getStatus()));
+            DistributionSummary.builder(SUMMARY)
+                    .baseUnit("statements")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(usage.statements());
+            Timer.builder(TIMER)
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(usage.executionNanos(), TimeUnit.NANOSECONDS);
+
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= slowRequestNanos) {
+                log.warn("Slow request {} {} answered {} in {} ms: {} statements, {} ms in the database",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed), usage.statements(),
+                        TimeUnit.NANOSECONDS.toMillis(usage.executionNanos()));
+            }
+        }
+    }
+
+    // Sets the headers with the usage so far right before the response can be committed, or at the end of the request
+    // when nothing committed it
+    private static final class UsageHeadersResponse extends HttpServletResponseWrapper {
+
+        private boolean headersAdded;
+
+        private UsageHeadersResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        void addUsageHeaders() {
+            if (headersAdded || isCommitted()) {
+                return;
+            }
+            headersAdded = true;
+            DatabaseRoundTrips.Usage usage = DatabaseRoundTrips.current();
+            setHeader(STATEMENTS_HEADER, String.valueOf(usage.statements()));
+            setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", usage.executionNanos() / 1e6));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addUsageHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addUsageHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addUsageHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addUsageHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addUsageHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addUsageHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.alura.AluraFake.infra;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Serves a thread that already holds a connection its next one from a small reserve pool instead of the main pool.
+// Hibernate's TABLE id generator reserves each block of ids in a transaction of its own, on a second connection taken
+// while the insert's connection is still held, and every other writer waits for that block holding its own connection.
+// Taken from the main pool, that second connection may never come once writers hold all of them; reserve connections
+// are only held for the id_generator update, so they always come back.
+public class ReservedConnectionDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final HikariDataSource reserve;
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[1]);
+
+    public ReservedConnectionDataSource(HikariDataSource pool, int reservePoolSize) {
+        super(pool);
+        HikariConfig config = new HikariConfig();
+        pool.copyStateTo(config);
+        config.setPoolName((pool.getPoolName() == null ? "HikariPool" : pool.getPoolName()) + "-reserve");
+        config.setMaximumPoolSize(reservePoolSize);
+        config.setMinimumIdle(0);
+        this.reserve = new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int[] count = held.get();
+        Connection connection = count[0] > 0 ? reserve.getConnection() : super.getConnection();
+        count[0]++;
+        return tracked(connection, count);
+    }
+
+    @Override
+    public void close() {
+        reserve.close();
+        if (getTargetDataSource() instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    // The connection as handed out, with close() also releasing this thread's hold on it (once)
+    private static Connection tracked(Connection connection, int[] count) {
+        boolean[] released = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("equals")) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if (method.getName().equals("close") && !released[0]) {
+                        released[0] = true;
+                        count[0]--;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,91 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.exception.CourseNotFoundException;
+import br.com.alura.AluraFake.exception.InstructorNotFoundException;
+import br.com.alura.AluraFake.exception.InvalidCourseStateException;
+import br.com.alura.AluraFake.exception.UserNotInstructorException;
+import br.com.alura.AluraFake.task.Type;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import java.util.function.Supplier;
+
+// Times service operations as "service.operation", tagged with the service, the operation, the task type it works on
+// ("none" when it is not about a single type) and how it ended. Outcomes follow the status GlobalExceptionHandler
+// answers with, so a latency SLO can leave out the calls that were rejected by validation.
+// Histogram buckets for these timers are switched on in application.properties. Each operation is also a
+// ServiceOperationEvent in a Flight Recorder recording.
+@Component
+public class ServiceMetrics {
+
+    static final String TIMER = "service.operation";
+    static final String TASKS_CREATED = "service.tasks.created";
+    static final String NO_TYPE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T timed(String service, String operation, Supplier<T> work) {
+        return timed(service, operation, null, work);
+    }
+
+    public <T> T timed(String service, String operation, Type type, Supplier<T> work) {
+        ServiceOperationEvent event = new ServiceOperationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return work.get();
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            String typeTag = type == null ? NO_TYPE : type.name();
+            sample.stop(Timer.builder(TIMER)
+                    .tag("service", service)
+                    .tag("operation", operation)
+                    .tag("type", typeTag)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.service = service;
+                event.operation = operation;
+                event.type = typeTag;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    public void timed(String service, String operation, Runnable work) {
+        timed(service, operation, null, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Bulk creation mixes types in one call, so the tasks it created are also counted per type
+    public void countCreatedTasks(Type type, int count) {
+        meterRegistry.counter(TASKS_CREATED, "type", type.name()).increment(count);
+    }
+
+    static String outcomeOf(RuntimeException e) {
+        if (e instanceof CourseNotFoundException || e instanceof InstructorNotFoundException) {
+            return "not_found";
+        }
+        if (e instanceof IllegalArgumentException || e instanceof InvalidCourseStateException
+                || e instanceof UserNotInstructorException) {
+            return "validation_failure";
+        }
+        if (e instanceof ConcurrencyFailureException) {
+            return "conflict";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.task.Type;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import java.lang.reflect.UndeclaredThrowableException;
+
+// Times every @TimedOperation method. Ordered ahead of the transaction advice (which runs last), so the timer wraps
+// the whole transactional boundary: connection checkout, the method and the commit.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ServiceMetricsAspect {
+
+    private final ServiceMetrics serviceMetrics;
+
+    public ServiceMetricsAspect(ServiceMetrics serviceMetrics) {
+        this.serviceMetrics = serviceMetrics;
+    }
+
+    @Around("@annotation(timedOperation)")
+    public Object time(ProceedingJoinPoint joinPoint, TimedOperation timedOperation) {
+        Type type = timedOperation.type().length == 0 ? null : timedOperation.type()[0];
+        return serviceMetrics.timed(timedOperation.service(), joinPoint.getSignature().getName(), type, () -> {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // Service methods declare no checked exceptions
+                throw new UndeclaredThrowableException(e);
+            }
+        });
+    }
+}
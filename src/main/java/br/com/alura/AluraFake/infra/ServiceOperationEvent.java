@@ -0,0 +1,30 @@
+package br.com.alura.AluraFake.infra;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder event for one service operation, emitted by ServiceMetrics with the same tags as its timer. While no
+// recording is running, shouldCommit() is false and the fields are never filled in.
+@Name("br.com.alura.AluraFake.ServiceOperation")
+@Label("Service Operation")
+@Description("A TaskService or CourseService operation, with its task type and outcome")
+@Category({"AluraFake", "Service"})
+@StackTrace(false)
+class ServiceOperationEvent extends Event {
+
+    @Label("Service")
+    String service;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Task Type")
+    String type;
+
+    @Label("Outcome")
+    String outcome;
+}
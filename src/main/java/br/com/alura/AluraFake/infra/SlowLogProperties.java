@@ -0,0 +1,21 @@
+package br.com.alura.AluraFake.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import java.time.Duration;
+
+// Thresholds of the slow-query and slow-request logs (slow-log.* properties). A zero query threshold logs every
+// statement, like show-sql did; its bound values only with parameter-values, which stays off outside the dev profile.
+@ConfigurationProperties(prefix = "slow-log")
+public record SlowLogProperties(
+        @DefaultValue("200ms") Duration queryThreshold,
+        @DefaultValue("1s") Duration requestThreshold,
+        @DefaultValue("false") boolean parameterValues
+) {
+
+    public SlowLogProperties {
+        if (queryThreshold.isNegative() || requestThreshold.isNegative()) {
+            throw new IllegalArgumentException("slow-log thresholds cannot be negative");
+        }
+    }
+}
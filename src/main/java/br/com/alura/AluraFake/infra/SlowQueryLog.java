@@ -0,0 +1,103 @@
+package br.com.alura.AluraFake.infra;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Logs every JDBC execution that took at least the threshold, with the types of its bound parameters. Values are only
+// logged with slow-log.parameter-values=true (dev profile): they carry emails, password hashes and whatever else the
+// application stores. The DataSource is wrapped by datasource-proxy (see SlowLogConfiguration), so statements sent
+// through JdbcTemplate are seen as well as Hibernate's.
+// Only slow executions are formatted, and logback-spring.xml hands this logger to an AsyncAppender, so the thread that
+// ran the query does not wait on the console.
+public class SlowQueryLog implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    // A JDBC batch carries one parameter set per row; the first few are enough to recognise it
+    static final int MAX_PARAMETER_SETS = 5;
+
+    private final long thresholdMillis;
+    private final boolean parameterValues;
+
+    public SlowQueryLog(Duration threshold, boolean parameterValues) {
+        this.thresholdMillis = threshold.toMillis();
+        this.parameterValues = parameterValues;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() >= thresholdMillis && log.isWarnEnabled()) {
+            log.warn("Slow query took {} ms{}: {}", execInfo.getElapsedTime(),
+                    execInfo.isBatch() ? " (batch of " + execInfo.getBatchSize() + ")" : "",
+                    describe(queryInfoList, parameterValues));
+        }
+    }
+
+    static String describe(List<QueryInfo> queries, boolean parameterValues) {
+        return queries.stream()
+                .map(query -> query.getQuery() + (parameterValues
+                        ? parameters(query.getParametersList())
+                        : parameterTypes(query.getParametersList())))
+                .collect(Collectors.joining("; "));
+    }
+
+    // The types of the first parameter set, and how many sets a batch carried
+    private static String parameterTypes(List<List<ParameterSetOperation>> parameterSets) {
+        if (parameterSets.isEmpty()) {
+            return "";
+        }
+        String types = sorted(parameterSets.getFirst())
+                .map(SlowQueryLog::type)
+                .collect(Collectors.joining(",", "(", ")"));
+        return " params " + types + (parameterSets.size() > 1 ? " x " + parameterSets.size() : "");
+    }
+
+    private static String parameters(List<List<ParameterSetOperation>> parameterSets) {
+        if (parameterSets.isEmpty()) {
+            return "";
+        }
+        String shown = parameterSets.stream()
+                .limit(MAX_PARAMETER_SETS)
+                .map(SlowQueryLog::parameterSet)
+                .collect(Collectors.joining(", "));
+        int hidden = parameterSets.size() - MAX_PARAMETER_SETS;
+        return " params " + shown + (hidden > 0 ? " and " + hidden + " more" : "");
+    }
+
+    private static String parameterSet(List<ParameterSetOperation> operations) {
+        return sorted(operations)
+                .map(operation -> ParameterSetOperation.isSetNullParameterOperation(operation)
+                        ? "NULL"
+                        : String.valueOf(operation.getArgs()[1]))
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    // Named after the setter (setLong is Long); setObject by the class of its value
+    private static String type(ParameterSetOperation operation) {
+        if (ParameterSetOperation.isSetNullParameterOperation(operation)) {
+            return "NULL";
+        }
+        String setter = operation.getMethod().getName();
+        return setter.equals("setObject") && operation.getArgs()[1] != null
+                ? operation.getArgs()[1].getClass().getSimpleName()
+                : setter.substring("set".length());
+    }
+
+    private static Stream<ParameterSetOperation> sorted(List<ParameterSetOperation> operations) {
+        return operations.stream()
+                .sorted(Comparator.comparingInt(operation -> operation.getArgs()[0] instanceof Integer index ? index : 0));
+    }
+}
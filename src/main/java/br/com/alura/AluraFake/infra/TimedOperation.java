@@ -0,0 +1,19 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.task.Type;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a service method timed by ServiceMetrics as one operation, named after the method. The timer starts before
+// the method's transaction and stops after its commit (see ServiceMetricsAspect).
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TimedOperation {
+
+    String service();
+
+    // The task type the operation works on, when it is about a single one
+    Type[] type() default {};
+}
@@ -1,7 +1,9 @@
 package br.com.alura.AluraFake.task;
 
+import br.com.alura.AluraFake.util.StatementHash;
 import jakarta.persistence.Entity;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,12 +11,24 @@ import java.util.List;
 
 @Entity
 @Table(name = "task",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"course_id", "statement"})
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_task_course_statement_hash", columnNames = {"course_id", "statement_hash"}),
+                // Serves every per-course lookup (counts, neighbour ranks, keyset pages) and rejects rank collisions
+                @UniqueConstraint(name = "uk_task_course_rank", columnNames = {"course_id", "task_rank"})
+        }
 )
 public class Task {
 
+    // Spacing between consecutive ranks, so inserts land in a gap instead of shifting rows
+    public static final long RANK_GAP = 1024;
+
+    // Pooled table generator instead of IDENTITY so Hibernate can batch inserts. The generator reserves ids on a
+    // connection of its own, next to the one the insert already holds, so blocks are large enough that this happens
+    // once per thousand tasks rather than on a busy write path every few requests
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_id")
+    @TableGenerator(name = "task_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "task", allocationSize = 1000)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -24,7 +38,15 @@ public class Task {
     @Column(name = "statement", nullable = false, columnDefinition = "TEXT")
     private String statement;
 
-    @Column(name = "task_order", nullable = false)
+    // Indexed fingerprint of the trimmed statement, used for duplicate detection within a course
+    @Column(name = "statement_hash", nullable = false, columnDefinition = "CHAR(64)")
+    private String statementHash;
+
+    // Sparse internal position; the public 1-based order is derived from it when reading
+    @Column(name = "task_rank", nullable = false)
+    private Long rank;
+
+    @Transient
     private Integer order;
 
     @Enumerated(EnumType.STRING)
@@ -34,6 +56,12 @@ public class Task {
     @OneToMany(mappedBy = "task", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<TaskOption> options = new ArrayList<>();
 
+    // Optimistic lock: a write based on a stale copy of the task fails instead of overwriting a newer one
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP")
     private LocalDateTime createdAt;
@@ -44,7 +72,9 @@ public class Task {
     public Task(Long courseId, String statement, Integer order, Type type) {
         this.courseId = courseId;
         this.statement = statement;
+        this.statementHash = StatementHash.of(statement);
         this.order = order;
+        this.rank = order * RANK_GAP;
         this.type = type;
     }
 
@@ -52,11 +82,21 @@ public class Task {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getVersion() { return version; }
+
     public Long getCourseId() { return courseId; }
     public void setCourseId(Long courseId) { this.courseId = courseId; }
 
     public String getStatement() { return statement; }
-    public void setStatement(String statement) { this.statement = statement; }
+    public void setStatement(String statement) {
+        this.statement = statement;
+        this.statementHash = StatementHash.of(statement);
+    }
+
+    public String getStatementHash() { return statementHash; }
+
+    public Long getRank() { return rank; }
+    public void setRank(Long rank) { this.rank = rank; }
 
     public Integer getOrder() { return order; }
     public void setOrder(Integer order) { this.order = order; }
@@ -1,30 +1,59 @@
 package br.com.alura.AluraFake.task;
 
+import br.com.alura.AluraFake.task.dto.request.BulkTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.MultipleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.SingleChoiceTaskRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskPageResponse;
 import br.com.alura.AluraFake.task.dto.response.TaskResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 public class TaskController {
 
     private final TaskService taskService;
+    private final ObjectMapper objectMapper;
 
-    public TaskController(TaskService taskService) {
+    public TaskController(TaskService taskService, ObjectMapper objectMapper) {
         this.taskService = taskService;
+        this.objectMapper = objectMapper;
     }
 
-    @GetMapping("/tasks")
+    @GetMapping(value = "/tasks", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<TaskResponse>> getAllTasks() {
         List<TaskResponse> tasks = taskService.findAllTasks();
         return ResponseEntity.ok(tasks);
     }
 
+    @GetMapping(value = "/tasks", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TaskPageResponse> getTasksPage(
+            @RequestParam("limit") int limit,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "courseId", required = false) Long courseId
+    ) {
+        TaskPageResponse page = taskService.findTasksPage(courseId, after, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/tasks", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTasks(@RequestParam(value = "courseId", required = false) Long courseId) {
+        StreamingResponseBody body = outputStream ->
+                taskService.streamTasks(courseId, task -> writeLine(outputStream, task));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/tasks/{id}")
     public ResponseEntity<TaskResponse> getTaskById(@PathVariable("id") Long id) {
         try {
@@ -52,4 +81,20 @@ public class TaskController {
         TaskResponse response = taskService.createMultipleChoiceTask(request);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/course/{id}/tasks/bulk")
+    public ResponseEntity<List<TaskResponse>> newTasksInBulk(@PathVariable("id") Long courseId,
+                                                             @Valid @RequestBody BulkTaskRequest request) {
+        List<TaskResponse> response = taskService.createTasksInBulk(courseId, request.getTasks());
+        return ResponseEntity.ok(response);
+    }
+
+    private void writeLine(OutputStream outputStream, TaskResponse task) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(task));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.alura.AluraFake.task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset position (course_id, task_rank, id) handed to clients as an opaque token.
+// The public order of the last task travels along so the next page can keep numbering without a count query.
+public record TaskCursor(Long courseId, Long rank, Long id, Integer order) {
+
+    public static final TaskCursor START = new TaskCursor(0L, 0L, 0L, 0);
+
+    public static TaskCursor of(Task task) {
+        return new TaskCursor(task.getCourseId(), task.getRank(), task.getId(), task.getOrder());
+    }
+
+    public static TaskCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new TaskCursor(Long.valueOf(parts[0]), Long.valueOf(parts[1]), Long.valueOf(parts[2]), Integer.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = courseId + ":" + rank + ":" + id + ":" + order;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
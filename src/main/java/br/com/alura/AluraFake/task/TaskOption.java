@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 public class TaskOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "task_option_id")
+    @TableGenerator(name = "task_option_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "task_option", allocationSize = 1000)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -0,0 +1,5 @@
+package br.com.alura.AluraFake.task;
+
+// Lightweight (id, rank) view of a task, used to reason about a course's sequence in memory
+public record TaskPosition(Long id, Long rank) {
+}
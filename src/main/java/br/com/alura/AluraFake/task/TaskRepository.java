@@ -1,28 +1,87 @@
 package br.com.alura.AluraFake.task;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
 
-    // Check if statement already exists for a course
-    boolean existsByCourseIdAndStatement(Long courseId, String statement);
-
     List<Task> findByCourseId(Long courseId);
 
-    // Find tasks by course ID with order greater than or equal to given order
-    @Query("SELECT t FROM Task t WHERE t.courseId = :courseId AND t.order >= :order ORDER BY t.order ASC")
-    List<Task> findByCourseIdAndOrderGreaterThanEqualOrder(@Param("courseId") Long courseId, @Param("order") Integer order);
+    // Statement hashes among the given ones that already exist in the course (index lookups, no TEXT comparison)
+    @Query("SELECT t.statementHash FROM Task t WHERE t.courseId = :courseId AND t.statementHash IN :statementHashes")
+    List<String> findExistingStatementHashes(@Param("courseId") Long courseId, @Param("statementHashes") Collection<String> statementHashes);
+
+    // Current task sequence of a course, without loading statements or options
+    @Query("SELECT new br.com.alura.AluraFake.task.TaskPosition(t.id, t.rank) FROM Task t " +
+            "WHERE t.courseId = :courseId ORDER BY t.rank, t.id")
+    List<TaskPosition> findPositionsByCourseId(@Param("courseId") Long courseId);
+
+    // Load every task together with its options in a single statement (avoids one query per task)
+    @Query("SELECT t FROM Task t LEFT JOIN FETCH t.options o ORDER BY t.courseId, t.rank, t.id, o.id")
+    List<Task> findAllWithOptions();
+
+    // Tasks of one course with their options, in sequence order, in a single statement
+    @Query("SELECT t FROM Task t LEFT JOIN FETCH t.options o WHERE t.courseId = :courseId ORDER BY t.rank, t.id, o.id")
+    List<Task> findByCourseIdWithOptions(@Param("courseId") Long courseId);
+
+    // Keyset page over (course_id, task_rank, id), starting right after the given position. The redundant
+    // course_id >= bound lets the database seek into the index instead of scanning for the OR
+    @Query("SELECT t FROM Task t WHERE t.courseId >= :courseId AND (t.courseId > :courseId " +
+            "OR (t.courseId = :courseId AND (t.rank > :rank OR (t.rank = :rank AND t.id > :id)))) " +
+            "ORDER BY t.courseId, t.rank, t.id")
+    List<Task> findPageAfter(@Param("courseId") Long courseId, @Param("rank") Long rank, @Param("id") Long id, Limit limit);
 
-    // Find maximum order for a course
-    @Query("SELECT COALESCE(MAX(t.order), 0) FROM Task t WHERE t.courseId = :courseId")
-    Integer findMaxOrderByCourseId(@Param("courseId") Long courseId);
+    // Keyset page restricted to a single course
+    @Query("SELECT t FROM Task t WHERE t.courseId = :courseId " +
+            "AND (t.rank > :rank OR (t.rank = :rank AND t.id > :id)) " +
+            "ORDER BY t.rank, t.id")
+    List<Task> findCoursePageAfter(@Param("courseId") Long courseId, @Param("rank") Long rank, @Param("id") Long id, Limit limit);
+
+    // Options of a batch of tasks, loaded in one statement
+    @Query("SELECT o FROM TaskOption o WHERE o.task.id IN :taskIds ORDER BY o.id")
+    List<TaskOption> findOptionsByTaskIds(@Param("taskIds") Collection<Long> taskIds);
+
+    // Cursor-backed stream of every task, for exports that must not hold the whole table in memory
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM Task t ORDER BY t.courseId, t.rank, t.id")
+    Stream<Task> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM Task t WHERE t.courseId = :courseId ORDER BY t.rank, t.id")
+    Stream<Task> streamByCourseId(@Param("courseId") Long courseId);
+
+    // Everything a single task insert needs to validate and place itself, read in one round trip.
+    // Empty when the course does not exist. The course row stays locked until commit, so concurrent inserts
+    // into the same course, even from other instances, validate against each other's results.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new br.com.alura.AluraFake.task.TaskWriteContext(c.status, " +
+            "(SELECT COUNT(t) FROM Task t WHERE t.courseId = c.id), " +
+            "(SELECT COUNT(t) FROM Task t WHERE t.courseId = c.id AND t.statementHash = :statementHash), " +
+            "(SELECT t.rank FROM Task t WHERE t.courseId = c.id ORDER BY t.rank, t.id LIMIT 1 OFFSET :previousOffset), " +
+            "(SELECT t.rank FROM Task t WHERE t.courseId = c.id ORDER BY t.rank, t.id LIMIT 1 OFFSET :nextOffset)) " +
+            "FROM Course c WHERE c.id = :courseId")
+    Optional<TaskWriteContext> findWriteContext(@Param("courseId") Long courseId, @Param("statementHash") String statementHash,
+                                                @Param("previousOffset") int previousOffset, @Param("nextOffset") int nextOffset);
+
+    // Number of tasks placed before the given one, i.e. its 0-based position in the course
+    @Query("SELECT COUNT(t) FROM Task t WHERE t.courseId = :courseId " +
+            "AND (t.rank < :rank OR (t.rank = :rank AND t.id < :id))")
+    long countPreceding(@Param("courseId") Long courseId, @Param("rank") Long rank, @Param("id") Long id);
 
     // Count tasks by course ID
     int countByCourseId(Long courseId);
@@ -30,16 +89,8 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     // Count tasks by course ID and type
     int countByCourseIdAndType(Long courseId, Type type);
 
-    // Find task with specific order in a course
-    Optional<Task> findByCourseIdAndOrder(Long courseId, Integer order);
-
-    // Update order for tasks (increment order by 1)
+    // Move every rank of a course below zero, so a rebalance can reassign them without colliding
     @Modifying
-    @Query("UPDATE Task t SET t.order = t.order + 1 WHERE t.courseId = :courseId AND t.order >= :fromOrder")
-    void incrementOrderFromPosition(@Param("courseId") Long courseId, @Param("fromOrder") Integer fromOrder);
-
-    // Check if there's a gap in sequence (for validation)
-    @Query("SELECT CASE WHEN COUNT(t) = :expectedCount THEN true ELSE false END " +
-            "FROM Task t WHERE t.courseId = :courseId AND t.order BETWEEN 1 AND :maxOrder")
-    boolean hasSequentialOrdering(@Param("courseId") Long courseId, @Param("maxOrder") Integer maxOrder, @Param("expectedCount") Long expectedCount);
-}
\ No newline at end of file
+    @Query("UPDATE VERSIONED Task t SET t.rank = -t.rank WHERE t.courseId = :courseId")
+    void negateRanks(@Param("courseId") Long courseId);
+}
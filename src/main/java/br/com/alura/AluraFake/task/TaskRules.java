@@ -0,0 +1,116 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskOptionResponse;
+import br.com.alura.AluraFake.task.dto.response.TaskResponse;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// The rules a new task must follow and the mapping of tasks to responses: plain functions of their arguments,
+// with no repository or transaction behind them
+class TaskRules {
+
+    private TaskRules() {
+    }
+
+    static void validateOrderWithinSequence(int maxOrder, int newOrder) {
+        // If trying to add with order greater than maxOrder + 1, it's invalid
+        if (newOrder > maxOrder + 1) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid order sequence. Course has tasks up to order %d, cannot add task with order %d",
+                            maxOrder, newOrder)
+            );
+        }
+    }
+
+    static void validateOptionsForType(Type type, List<TaskOptionRequest> options, String statement) {
+        int optionCount = options == null ? 0 : options.size();
+        switch (type) {
+            case OPEN_TEXT -> {
+                if (optionCount > 0) {
+                    throw new IllegalArgumentException("Open text task cannot have options");
+                }
+            }
+            case SINGLE_CHOICE -> {
+                if (optionCount < 2 || optionCount > 5) {
+                    throw new IllegalArgumentException("Single choice task must have between 2 and 5 options");
+                }
+                validateSingleChoiceRules(options, statement);
+            }
+            case MULTIPLE_CHOICE -> {
+                if (optionCount < 3 || optionCount > 5) {
+                    throw new IllegalArgumentException("Multiple choice task must have between 3 and 5 options");
+                }
+                validateMultipleChoiceRules(options, statement);
+            }
+        }
+    }
+
+    static void validateSingleChoiceRules(List<TaskOptionRequest> options, String statement) {
+        validateCommonOptionRules(options, statement);
+
+        // Must have exactly one correct option
+        long correctCount = options.stream().mapToLong(option -> option.getIsCorrect() ? 1 : 0).sum();
+        if (correctCount != 1) {
+            throw new IllegalArgumentException("Single choice task must have exactly one correct option");
+        }
+    }
+
+    static void validateMultipleChoiceRules(List<TaskOptionRequest> options, String statement) {
+        validateCommonOptionRules(options, statement);
+
+        // Must have at least 2 correct options and at least 1 incorrect
+        long correctCount = options.stream().mapToLong(option -> option.getIsCorrect() ? 1 : 0).sum();
+        long incorrectCount = options.size() - correctCount;
+
+        if (correctCount < 2) {
+            throw new IllegalArgumentException("Multiple choice task must have at least 2 correct options");
+        }
+        if (incorrectCount < 1) {
+            throw new IllegalArgumentException("Multiple choice task must have at least 1 incorrect option");
+        }
+    }
+
+    static void validateCommonOptionRules(List<TaskOptionRequest> options, String statement) {
+        // Check for duplicate options
+        Set<String> uniqueOptions = new HashSet<>();
+        for (TaskOptionRequest option : options) {
+            if (!uniqueOptions.add(option.getOption().trim())) {
+                throw new IllegalArgumentException("Options cannot be identical");
+            }
+        }
+
+        // Check if any option equals the statement
+        for (TaskOptionRequest option : options) {
+            if (option.getOption().trim().equals(statement.trim())) {
+                throw new IllegalArgumentException("Options cannot be identical to the task statement");
+            }
+        }
+    }
+
+    static TaskResponse toResponse(Task task) {
+        return toResponse(task, task.getOptions());
+    }
+
+    static TaskResponse toResponse(Task task, List<TaskOption> options) {
+        List<TaskOptionResponse> optionResponses = null;
+
+        if (options != null && !options.isEmpty()) {
+            optionResponses = options.stream()
+                    .map(option -> new TaskOptionResponse(option.getId(), option.getOption(), option.getIsCorrect()))
+                    .collect(Collectors.toList());
+        }
+
+        return new TaskResponse(
+                task.getId(),
+                task.getCourseId(),
+                task.getStatement(),
+                task.getOrder(),
+                task.getType(),
+                task.getCreatedAt(),
+                optionResponses
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.alura.AluraFake.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory view of a course's task order: existing tasks are kept as (id, rank), new ones as entities
+class TaskSequence {
+
+    private record Entry(Long id, Long rank, Task task) {
+        boolean isNew() {
+            return task != null;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    TaskSequence(List<TaskPosition> positions) {
+        positions.forEach(position -> entries.add(new Entry(position.id(), position.rank(), null)));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Inserts a new task at the given 1-based order, pushing the following tasks back by one
+    void insert(int order, Task task) {
+        entries.add(order - 1, new Entry(null, null, task));
+    }
+
+    // Dense public order of the new tasks, as they will be read back
+    void assignOrders() {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).isNew()) {
+                entries.get(i).task().setOrder(i + 1);
+            }
+        }
+    }
+
+    // Spreads each run of new tasks over the gap between its existing neighbours.
+    // Returns false when some gap is too narrow, in which case the sequence must be rebalanced.
+    boolean assignRanksInGaps() {
+        int i = 0;
+        while (i < entries.size()) {
+            if (!entries.get(i).isNew()) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < entries.size() && entries.get(i).isNew()) {
+                i++;
+            }
+            Long previous = runStart > 0 ? entries.get(runStart - 1).rank() : null;
+            Long next = i < entries.size() ? entries.get(i).rank() : null;
+            long[] ranks = spread(previous, next, i - runStart);
+            if (ranks == null) {
+                return false;
+            }
+            for (int j = 0; j < ranks.length; j++) {
+                entries.get(runStart + j).task().setRank(ranks[j]);
+            }
+        }
+        return true;
+    }
+
+    // Renumbers the whole sequence at RANK_GAP intervals and returns the new rank of every existing task
+    Map<Long, Long> rebalance() {
+        Map<Long, Long> existingRanks = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            long rank = (i + 1) * Task.RANK_GAP;
+            Entry entry = entries.get(i);
+            if (entry.isNew()) {
+                entry.task().setRank(rank);
+            } else {
+                existingRanks.put(entry.id(), rank);
+            }
+        }
+        return existingRanks;
+    }
+
+    // Rank strictly between two neighbours (either may be missing), or null when they are adjacent
+    static Long rankBetween(Long previous, Long next) {
+        long[] ranks = spread(previous, next, 1);
+        return ranks == null ? null : ranks[0];
+    }
+
+    private static long[] spread(Long previous, Long next, int count) {
+        long low = previous == null ? 0 : previous;
+        long step = next == null ? Task.RANK_GAP : (next - low) / (count + 1);
+        if (step < 1) {
+            return null;
+        }
+        long[] ranks = new long[count];
+        for (int j = 0; j < count; j++) {
+            ranks[j] = low + step * (j + 1);
+        }
+        return ranks;
+    }
+}
@@ -1,198 +1,357 @@
 package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseCache;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.CourseWriteGuard;
 import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.infra.ServiceMetrics;
+import br.com.alura.AluraFake.infra.TimedOperation;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskItemRequest;
 import br.com.alura.AluraFake.task.dto.request.MultipleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.SingleChoiceTaskRequest;
-import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
-import br.com.alura.AluraFake.task.dto.response.TaskOptionResponse;
+import br.com.alura.AluraFake.task.dto.response.TaskPageResponse;
 import br.com.alura.AluraFake.task.dto.response.TaskResponse;
+import br.com.alura.AluraFake.util.StatementHash;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TaskService {
 
+    static final int MAX_PAGE_SIZE = 500;
+    static final int STREAM_CHUNK_SIZE = 200;
+
     private final TaskRepository taskRepository;
     private final CourseRepository courseRepository;
+    private final CourseCache courseCache;
+    private final CourseWriteGuard courseWriteGuard;
+    private final ServiceMetrics serviceMetrics;
+    private final EntityManager entityManager;
 
-    public TaskService(TaskRepository taskRepository, CourseRepository courseRepository) {
+    public TaskService(TaskRepository taskRepository, CourseRepository courseRepository, CourseCache courseCache,
+                       CourseWriteGuard courseWriteGuard, ServiceMetrics serviceMetrics, EntityManager entityManager) {
         this.taskRepository = taskRepository;
         this.courseRepository = courseRepository;
+        this.courseCache = courseCache;
+        this.courseWriteGuard = courseWriteGuard;
+        this.serviceMetrics = serviceMetrics;
+        this.entityManager = entityManager;
     }
 
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "task")
     public List<TaskResponse> findAllTasks() {
-        List<Task> tasks = taskRepository.findAll();
+        List<Task> tasks = taskRepository.findAllWithOptions();
+        OrderNumbering numbering = new OrderNumbering(null, 0);
+        tasks.forEach(numbering::number);
+        return tasks.stream()
+                .map(TaskRules::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "task")
+    public List<TaskResponse> findCourseTasks(Long courseId) {
+        List<Task> tasks = taskRepository.findByCourseIdWithOptions(courseId);
+        OrderNumbering numbering = new OrderNumbering(null, 0);
+        tasks.forEach(numbering::number);
         return tasks.stream()
-                .map(this::convertToTaskResponse)
+                .map(TaskRules::toResponse)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "task")
+    public TaskPageResponse findTasksPage(Long courseId, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        TaskCursor cursor = after == null ? TaskCursor.START : TaskCursor.decode(after);
+        List<Task> tasks;
+        if (courseId == null) {
+            tasks = taskRepository.findPageAfter(cursor.courseId(), cursor.rank(), cursor.id(), Limit.of(limit));
+        } else {
+            if (after != null && !courseId.equals(cursor.courseId())) {
+                throw new IllegalArgumentException("Cursor does not belong to course " + courseId);
+            }
+            tasks = taskRepository.findCoursePageAfter(courseId, cursor.rank(), cursor.id(), Limit.of(limit));
+        }
+
+        // Numbering resumes from the order carried by the cursor when the page continues the same course
+        OrderNumbering numbering = new OrderNumbering(cursor.courseId(), cursor.order());
+        tasks.forEach(numbering::number);
+
+        String nextCursor = tasks.size() < limit ? null : TaskCursor.of(tasks.getLast()).encode();
+        return new TaskPageResponse(convertWithBatchedOptions(tasks), nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "task")
+    public void streamTasks(Long courseId, Consumer<TaskResponse> consumer) {
+        try (Stream<Task> tasks = courseId == null
+                ? taskRepository.streamAll()
+                : taskRepository.streamByCourseId(courseId)) {
+
+            List<Task> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            OrderNumbering numbering = new OrderNumbering(null, 0);
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                numbering.number(task);
+                chunk.add(task);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    emitChunk(chunk, consumer);
+                }
+            }
+            emitChunk(chunk, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @TimedOperation(service = "task")
     public TaskResponse findTaskById(Long id) {
         Task task = taskRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Task not found with id: " + id));
+        task.setOrder((int) taskRepository.countPreceding(task.getCourseId(), task.getRank(), task.getId()) + 1);
 
-        return convertToTaskResponse(task);
+        return TaskRules.toResponse(task);
     }
 
-    @Transactional
+    @TimedOperation(service = "task", type = Type.OPEN_TEXT)
     public TaskResponse createOpenTextTask(OpenTextTaskRequest request) {
-        validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
+        return courseWriteGuard.write(request.getCourseId(), () -> {
+            TaskWriteContext context = validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
 
-        Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.OPEN_TEXT);
+            Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.OPEN_TEXT);
 
-        handleTaskOrdering(task);
-        Task savedTask = taskRepository.save(task);
+            placeTask(task, context);
+            Task savedTask = taskRepository.save(task);
+            incrementCourseCounters(savedTask.getCourseId(), List.of(savedTask));
 
-        return convertToTaskResponse(savedTask);
+            return TaskRules.toResponse(savedTask);
+        });
     }
 
-    @Transactional
+    @TimedOperation(service = "task", type = Type.SINGLE_CHOICE)
     public TaskResponse createSingleChoiceTask(SingleChoiceTaskRequest request) {
-        validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
-        validateSingleChoiceRules(request.getOptions(), request.getStatement());
+        return courseWriteGuard.write(request.getCourseId(), () -> {
+            TaskWriteContext context = validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
+            TaskRules.validateSingleChoiceRules(request.getOptions(), request.getStatement());
 
-        Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.SINGLE_CHOICE);
+            Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.SINGLE_CHOICE);
 
-        handleTaskOrdering(task);
-        Task savedTask = taskRepository.save(task);
-
-        // Save options
-        List<TaskOption> options = request.getOptions().stream()
-                .map(optionRequest -> new TaskOption(optionRequest.getOption(), optionRequest.getIsCorrect(), savedTask))
-                .collect(Collectors.toList());
+            // Options are attached before the single save and cascade with the task
+            List<TaskOption> options = request.getOptions().stream()
+                    .map(optionRequest -> new TaskOption(optionRequest.getOption(), optionRequest.getIsCorrect(), task))
+                    .collect(Collectors.toList());
+            task.setOptions(options);
 
-        savedTask.setOptions(options);
-        taskRepository.save(savedTask);
+            placeTask(task, context);
+            Task savedTask = taskRepository.save(task);
+            incrementCourseCounters(savedTask.getCourseId(), List.of(savedTask));
 
-        return convertToTaskResponse(savedTask);
+            return TaskRules.toResponse(savedTask);
+        });
     }
 
-    @Transactional
+    @TimedOperation(service = "task", type = Type.MULTIPLE_CHOICE)
     public TaskResponse createMultipleChoiceTask(MultipleChoiceTaskRequest request) {
-        validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
-        validateMultipleChoiceRules(request.getOptions(), request.getStatement());
+        return courseWriteGuard.write(request.getCourseId(), () -> {
+            TaskWriteContext context = validateBasicTaskRules(request.getCourseId(), request.getStatement(), request.getOrder());
+            TaskRules.validateMultipleChoiceRules(request.getOptions(), request.getStatement());
 
-        Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.MULTIPLE_CHOICE);
+            Task task = new Task(request.getCourseId(), request.getStatement(), request.getOrder(), Type.MULTIPLE_CHOICE);
 
-        handleTaskOrdering(task);
-        Task savedTask = taskRepository.save(task);
+            // Options are attached before the single save and cascade with the task
+            List<TaskOption> options = request.getOptions().stream()
+                    .map(optionRequest -> new TaskOption(optionRequest.getOption(), optionRequest.getIsCorrect(), task))
+                    .collect(Collectors.toList());
+            task.setOptions(options);
 
-        // Save options
-        List<TaskOption> options = request.getOptions().stream()
-                .map(optionRequest -> new TaskOption(optionRequest.getOption(), optionRequest.getIsCorrect(), savedTask))
-                .collect(Collectors.toList());
+            placeTask(task, context);
+            Task savedTask = taskRepository.save(task);
+            incrementCourseCounters(savedTask.getCourseId(), List.of(savedTask));
 
-        savedTask.setOptions(options);
-        taskRepository.save(savedTask);
+            return TaskRules.toResponse(savedTask);
+        });
+    }
 
-        return convertToTaskResponse(savedTask);
+    @TimedOperation(service = "task")
+    public List<TaskResponse> createTasksInBulk(Long courseId, List<BulkTaskItemRequest> requests) {
+        List<TaskResponse> created = courseWriteGuard.write(courseId, () -> insertTasksInBulk(courseId, requests));
+        // Counted once committed, so neither a rejected batch nor a retried attempt is counted
+        created.stream()
+                .collect(Collectors.groupingBy(TaskResponse::getType, () -> new EnumMap<>(Type.class), Collectors.counting()))
+                .forEach((type, count) -> serviceMetrics.countCreatedTasks(type, count.intValue()));
+        return created;
     }
 
-    private void validateBasicTaskRules(Long courseId, String statement, Integer order) {
-       Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found"));
+    private List<TaskResponse> insertTasksInBulk(Long courseId, List<BulkTaskItemRequest> requests) {
+        validateCourseAcceptsTasks(courseId);
+
+        // One snapshot of the course: statements already taken and the current task sequence
+        List<String> statementHashes = requests.stream().map(request -> StatementHash.of(request.getStatement())).toList();
+        Set<String> takenStatements = new HashSet<>(taskRepository.findExistingStatementHashes(courseId, statementHashes));
+        List<TaskPosition> existingPositions = taskRepository.findPositionsByCourseId(courseId);
+
+        // Replay the inserts in memory, in request order, as if each one had been posted to /task/new/*
+        TaskSequence sequence = new TaskSequence(existingPositions);
+        List<Task> newTasks = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            BulkTaskItemRequest request = requests.get(i);
+            try {
+                if (!takenStatements.add(statementHashes.get(i))) {
+                    throw new IllegalArgumentException("Course already has a task with this statement");
+                }
+                TaskRules.validateOptionsForType(request.getType(), request.getOptions(), request.getStatement());
+                TaskRules.validateOrderWithinSequence(sequence.size(), request.getOrder());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Task " + (i + 1) + ": " + e.getMessage());
+            }
 
-        if (!Status.BUILDING.equals(course.getStatus())) {
-            throw new IllegalArgumentException("Cannot add tasks to course. Course status must be BUILDING");
+            Task task = new Task(courseId, request.getStatement(), request.getOrder(), request.getType());
+            if (request.getOptions() != null) {
+                task.setOptions(request.getOptions().stream()
+                        .map(optionRequest -> new TaskOption(optionRequest.getOption(), optionRequest.getIsCorrect(), task))
+                        .collect(Collectors.toList()));
+            }
+            sequence.insert(request.getOrder(), task);
+            newTasks.add(task);
         }
 
-        // Check if statement already exists for this course
-        if (taskRepository.existsByCourseIdAndStatement(courseId, statement)) {
-            throw new IllegalArgumentException("Course already has a task with this statement");
+        // New tasks take ranks inside the existing gaps, so existing rows are left untouched
+        sequence.assignOrders();
+        if (!sequence.assignRanksInGaps()) {
+            rebalance(courseId, sequence);
         }
 
-        validateSequentialOrdering(courseId, order);
+        incrementCourseCounters(courseId, newTasks);
+
+        return taskRepository.saveAll(newTasks).stream()
+                .map(TaskRules::toResponse)
+                .collect(Collectors.toList());
     }
 
-    private void validateSequentialOrdering(Long courseId, Integer newOrder) {
-        Integer maxOrder = taskRepository.findMaxOrderByCourseId(courseId);
+    private void validateCourseAcceptsTasks(Long courseId) {
+        Course course = courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found"));
 
-        // If trying to add with order greater than maxOrder + 1, it's invalid
-        if (newOrder > maxOrder + 1) {
-            throw new IllegalArgumentException(
-                    String.format("Invalid order sequence. Course has tasks up to order %d, cannot add task with order %d",
-                            maxOrder, newOrder)
-            );
-        }
+        validateCourseStatus(course.getStatus());
     }
 
-    private void validateSingleChoiceRules(List<TaskOptionRequest> options, String statement) {
-        validateCommonOptionRules(options, statement);
-
-        // Must have exactly one correct option
-        long correctCount = options.stream().mapToLong(option -> option.getIsCorrect() ? 1 : 0).sum();
-        if (correctCount != 1) {
-            throw new IllegalArgumentException("Single choice task must have exactly one correct option");
+    private void validateCourseStatus(Status status) {
+        if (!Status.BUILDING.equals(status)) {
+            throw new IllegalArgumentException("Cannot add tasks to course. Course status must be BUILDING");
         }
     }
 
-    private void validateMultipleChoiceRules(List<TaskOptionRequest> options, String statement) {
-        validateCommonOptionRules(options, statement);
+    private TaskWriteContext validateBasicTaskRules(Long courseId, String statement, Integer order) {
+        // Course status, duplicate check, sequence size and neighbour ranks all come from one query
+        TaskWriteContext context = taskRepository.findWriteContext(courseId, StatementHash.of(statement), Math.max(order - 2, 0), order - 1)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found"));
 
-        // Must have at least 2 correct options and at least 1 incorrect
-        long correctCount = options.stream().mapToLong(option -> option.getIsCorrect() ? 1 : 0).sum();
-        long incorrectCount = options.size() - correctCount;
+        validateCourseStatus(context.courseStatus());
 
-        if (correctCount < 2) {
-            throw new IllegalArgumentException("Multiple choice task must have at least 2 correct options");
-        }
-        if (incorrectCount < 1) {
-            throw new IllegalArgumentException("Multiple choice task must have at least 1 incorrect option");
+        // Check if statement already exists for this course
+        if (context.statementMatches() > 0) {
+            throw new IllegalArgumentException("Course already has a task with this statement");
         }
+
+        TaskRules.validateOrderWithinSequence(context.taskCount().intValue(), order);
+        return context;
     }
 
-    private void validateCommonOptionRules(List<TaskOptionRequest> options, String statement) {
-        // Check for duplicate options
-        Set<String> uniqueOptions = new HashSet<>();
-        for (TaskOptionRequest option : options) {
-            if (!uniqueOptions.add(option.getOption().trim())) {
-                throw new IllegalArgumentException("Options cannot be identical");
-            }
+    private void placeTask(Task task, TaskWriteContext context) {
+        Long courseId = task.getCourseId();
+        int position = task.getOrder();
+
+        // Rank halfway between the tasks currently at order - 1 and order; nothing else has to move
+        Long previous = position > 1 ? context.previousRank() : null;
+        Long rank = TaskSequence.rankBetween(previous, context.nextRank());
+        if (rank != null) {
+            task.setRank(rank);
+            return;
         }
 
-        // Check if any option equals the statement
-        for (TaskOptionRequest option : options) {
-            if (option.getOption().trim().equals(statement.trim())) {
-                throw new IllegalArgumentException("Options cannot be identical to the task statement");
-            }
-        }
+        // The gap is exhausted: spread the whole course out again
+        TaskSequence sequence = new TaskSequence(taskRepository.findPositionsByCourseId(courseId));
+        sequence.insert(position, task);
+        rebalance(courseId, sequence);
     }
 
-    private void handleTaskOrdering(Task task) {
-        Long courseId = task.getCourseId();
-        Integer newOrder = task.getOrder();
+    private void rebalance(Long courseId, TaskSequence sequence) {
+        Map<Long, Long> existingRanks = sequence.rebalance();
+        taskRepository.negateRanks(courseId);
+        taskRepository.findAllById(existingRanks.keySet())
+                .forEach(existing -> existing.setRank(existingRanks.get(existing.getId())));
+    }
+
+    // Keeps the course's materialized counters in step with the tasks just created
+    private void incrementCourseCounters(Long courseId, List<Task> createdTasks) {
+        Map<Type, Integer> counts = new EnumMap<>(Type.class);
+        createdTasks.forEach(task -> counts.merge(task.getType(), 1, Integer::sum));
+        courseRepository.incrementTaskCounters(courseId,
+                counts.getOrDefault(Type.OPEN_TEXT, 0),
+                counts.getOrDefault(Type.SINGLE_CHOICE, 0),
+                counts.getOrDefault(Type.MULTIPLE_CHOICE, 0));
+        courseCache.evictOnCommit(courseId);
+    }
 
-        // Check if position is already occupied
-        if (taskRepository.findByCourseIdAndOrder(courseId, newOrder).isPresent()) {
-            // Shift existing tasks forward
-            taskRepository.incrementOrderFromPosition(courseId, newOrder);
+    private void emitChunk(List<Task> chunk, Consumer<TaskResponse> consumer) {
+        if (chunk.isEmpty()) {
+            return;
         }
+        convertWithBatchedOptions(chunk).forEach(consumer);
+        chunk.clear();
+        // Detach what was already written so the export runs in constant memory
+        entityManager.clear();
     }
 
-    private TaskResponse convertToTaskResponse(Task task) {
-        List<TaskOptionResponse> optionResponses = null;
+    private List<TaskResponse> convertWithBatchedOptions(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
 
-        if (task.getOptions() != null && !task.getOptions().isEmpty()) {
-            optionResponses = task.getOptions().stream()
-                    .map(option -> new TaskOptionResponse(option.getId(), option.getOption(), option.getIsCorrect()))
-                    .collect(Collectors.toList());
+        List<Long> taskIds = tasks.stream().map(Task::getId).toList();
+        Map<Long, List<TaskOption>> optionsByTask = taskRepository.findOptionsByTaskIds(taskIds).stream()
+                .collect(Collectors.groupingBy(option -> option.getTask().getId()));
+
+        return tasks.stream()
+                .map(task -> TaskRules.toResponse(task, optionsByTask.getOrDefault(task.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    // Numbers tasks read in (course, rank) order with their dense 1-based public order
+    private static final class OrderNumbering {
+        private Long courseId;
+        private int order;
+
+        OrderNumbering(Long courseId, int order) {
+            this.courseId = courseId;
+            this.order = order;
         }
 
-        return new TaskResponse(
-                task.getId(),
-                task.getCourseId(),
-                task.getStatement(),
-                task.getOrder(),
-                task.getType(),
-                task.getCreatedAt(),
-                optionResponses
-        );
-    }
-}
\ No newline at end of file
+        void number(Task task) {
+            if (!task.getCourseId().equals(courseId)) {
+                courseId = task.getCourseId();
+                order = 0;
+            }
+            task.setOrder(++order);
+        }
+    }
+}
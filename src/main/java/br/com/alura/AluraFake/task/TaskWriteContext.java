@@ -0,0 +1,8 @@
+package br.com.alura.AluraFake.task;
+
+import br.com.alura.AluraFake.course.Status;
+
+// Snapshot of a course taken right before a single task insert: status, size, duplicate check and
+// the ranks of the tasks currently at the requested order - 1 and order
+public record TaskWriteContext(Status courseStatus, Long taskCount, Long statementMatches, Long previousRank, Long nextRank) {
+}
@@ -0,0 +1,48 @@
+package br.com.alura.AluraFake.task.dto.request;
+
+import br.com.alura.AluraFake.task.Type;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkTaskItemRequest {
+
+    @NotNull(message = "Type cannot be null")
+    private Type type;
+
+    @NotNull(message = "Statement cannot be null")
+    @Size(min = 4, max = 255, message = "Statement must be between 4 and 255 characters")
+    private String statement;
+
+    @NotNull(message = "Order cannot be null")
+    @Positive(message = "Order must be a positive number")
+    private Integer order;
+
+    @Valid
+    private List<TaskOptionRequest> options;
+
+    // Constructors
+    public BulkTaskItemRequest() {}
+
+    public BulkTaskItemRequest(Type type, String statement, Integer order, List<TaskOptionRequest> options) {
+        this.type = type;
+        this.statement = statement;
+        this.order = order;
+        this.options = options;
+    }
+
+    // Getters and Setters
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getStatement() { return statement; }
+    public void setStatement(String statement) { this.statement = statement; }
+
+    public Integer getOrder() { return order; }
+    public void setOrder(Integer order) { this.order = order; }
+
+    public List<TaskOptionRequest> getOptions() { return options; }
+    public void setOptions(List<TaskOptionRequest> options) { this.options = options; }
+}
@@ -0,0 +1,25 @@
+package br.com.alura.AluraFake.task.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkTaskRequest {
+
+    @NotEmpty(message = "Tasks cannot be empty")
+    @Size(max = 500, message = "A bulk request can create at most 500 tasks")
+    @Valid
+    private List<BulkTaskItemRequest> tasks;
+
+    // Constructors
+    public BulkTaskRequest() {}
+
+    public BulkTaskRequest(List<BulkTaskItemRequest> tasks) {
+        this.tasks = tasks;
+    }
+
+    // Getters and Setters
+    public List<BulkTaskItemRequest> getTasks() { return tasks; }
+    public void setTasks(List<BulkTaskItemRequest> tasks) { this.tasks = tasks; }
+}
@@ -0,0 +1,66 @@
+package br.com.alura.AluraFake.task.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CourseContentResponse {
+
+    private Long id;
+    private String title;
+    private String description;
+    private LocalDateTime publishedAt;
+    private List<TaskResponse> tasks;
+
+    // Constructors
+    public CourseContentResponse() {
+    }
+
+    public CourseContentResponse(Long id, String title, String description, LocalDateTime publishedAt, List<TaskResponse> tasks) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.publishedAt = publishedAt;
+        this.tasks = tasks;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(LocalDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public List<TaskResponse> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskResponse> tasks) {
+        this.tasks = tasks;
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.alura.AluraFake.task.dto.response;
+
+import java.util.List;
+
+public class TaskPageResponse {
+
+    private List<TaskResponse> items;
+    private String nextCursor;
+
+    // Constructors
+    public TaskPageResponse() {}
+
+    public TaskPageResponse(List<TaskResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<TaskResponse> getItems() { return items; }
+    public void setItems(List<TaskResponse> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
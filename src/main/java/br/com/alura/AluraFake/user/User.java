@@ -2,11 +2,16 @@ package br.com.alura.AluraFake.user;
 
 import br.com.alura.AluraFake.util.PasswordGeneration;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@Table(name = "users", indexes = @Index(name = "idx_users_name", columnList = "name"),
+        uniqueConstraints = @UniqueConstraint(name = "UC_Email", columnNames = "email"))
 public class User {
 
     @Id
@@ -34,6 +39,10 @@ public class User {
         this(name, email, role, PasswordGeneration.generatePassword());
     }
 
+    public Long getId() {
+        return id;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
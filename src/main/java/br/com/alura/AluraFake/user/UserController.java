@@ -1,20 +1,38 @@
 package br.com.alura.AluraFake.user;
 
 import br.com.alura.AluraFake.util.ErrorItemDTO;
+import br.com.alura.AluraFake.util.Listing;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.*;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 public class UserController {
 
+    // Listing sort keys, each backed by an index
+    static final Set<String> SORTABLE = Set.of("id", "name", "email");
+
     private final UserRepository userRepository;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository, UserImportService userImportService, ObjectMapper objectMapper) {
         this.userRepository = userRepository;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     @Transactional
@@ -30,8 +48,31 @@ public class UserController {
     }
 
     @GetMapping("/user/all")
-    public List<UserListItemDTO> listAllUsers() {
-        return userRepository.findAll().stream().map(UserListItemDTO::new).toList();
+    public ResponseEntity<List<UserListItemDTO>> listAllUsers(@PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        Slice<UserListItemDTO> users = userRepository.findListItems(Listing.sortedBy(pageable, SORTABLE));
+        return Listing.ok(users);
+    }
+
+    // The body is read while the results are written, one NDJSON line per line received
+    @PostMapping(value = "/user/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                             InputStream body) {
+        UserImportReader reader = userImportService.open(body, contentType);
+        StreamingResponseBody results = outputStream ->
+                userImportService.importUsers(reader, result -> writeLine(outputStream, result));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(results);
+    }
+
+    private void writeLine(OutputStream outputStream, UserImportResult result) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(result));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
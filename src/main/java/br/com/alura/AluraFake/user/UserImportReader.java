@@ -0,0 +1,143 @@
+package br.com.alura.AluraFake.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+// Reads an import body one line at a time: CSV with a header row naming the columns (name, email, role and optionally
+// password, in any order), or NDJSON with one user object per line. A line that cannot be read becomes a row carrying
+// the error, so one bad line does not stop the import. Blank lines are skipped but still counted.
+final class UserImportReader {
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "email", "role");
+
+    private final BufferedReader reader;
+    private final Function<String, NewUserDTO> parser;
+    private int line;
+
+    private UserImportReader(BufferedReader reader, Function<String, NewUserDTO> parser, int line) {
+        this.reader = reader;
+        this.parser = parser;
+        this.line = line;
+    }
+
+    static UserImportReader csv(BufferedReader reader) {
+        String header = readLine(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("CSV body must start with a header row");
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = split(header.replace("\uFEFF", ""));
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must name the columns " + REQUIRED_COLUMNS + ", found " + names);
+        }
+        return new UserImportReader(reader, text -> parseCsv(text, columns, names.size()), 1);
+    }
+
+    static UserImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new UserImportReader(reader, text -> parseJson(text, objectMapper), 0);
+    }
+
+    // The next non-blank line, or null at the end of the body
+    Row next() {
+        String text;
+        do {
+            text = readLine(reader);
+            line++;
+        } while (text != null && text.isBlank());
+        if (text == null) {
+            return null;
+        }
+
+        try {
+            return new Row(line, parser.apply(text), null);
+        } catch (IllegalArgumentException e) {
+            return new Row(line, null, e.getMessage());
+        }
+    }
+
+    private static NewUserDTO parseCsv(String text, Map<String, Integer> columns, int columnCount) {
+        List<String> fields = split(text);
+        if (fields.size() != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " columns but found " + fields.size());
+        }
+
+        NewUserDTO user = new NewUserDTO();
+        user.setName(fields.get(columns.get("name")));
+        user.setEmail(fields.get(columns.get("email")));
+        String role = fields.get(columns.get("role"));
+        if (!role.isEmpty()) {
+            try {
+                user.setRole(Role.valueOf(role));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("role: must be one of " + Arrays.toString(Role.values()));
+            }
+        }
+        if (columns.containsKey("password")) {
+            user.setPassword(fields.get(columns.get("password")));
+        }
+        return user;
+    }
+
+    private static NewUserDTO parseJson(String text, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(text, NewUserDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Comma-separated fields, each trimmed; a field in double quotes may hold commas, and "" inside it is one quote
+    static List<String> split(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A line of the body: the user read from it, or why it could not be read
+    record Row(int line, NewUserDTO user, String error) {}
+}
@@ -0,0 +1,15 @@
+package br.com.alura.AluraFake.user;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Outcome of one line of a user import; email and message are left out when there is nothing to report
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportResult(int line, String email, Outcome outcome, String message) {
+
+    public enum Outcome {
+        CREATED,
+        EXISTS,
+        DUPLICATE,
+        INVALID
+    }
+}
@@ -0,0 +1,204 @@
+package br.com.alura.AluraFake.user;
+
+import br.com.alura.AluraFake.infra.TimedOperation;
+import br.com.alura.AluraFake.user.UserImportResult.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Imports users from a CSV or NDJSON body a chunk of lines at a time, so memory only grows with the emails already
+// seen. Each chunk validates its lines like POST /user/new, drops emails repeated earlier in the body, looks up the rest
+// in one IN query and inserts the new users in one JDBC batch, in its own transaction; with MySQL the driver rewrites
+// the batch into multi-row INSERTs. Emails are compared ignoring case, like the MySQL collation does.
+// Every line gets a result, in input order, once its chunk is committed.
+@Service
+public class UserImportService {
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public UserImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             EntityManagerFactory entityManagerFactory, Validator validator, ObjectMapper objectMapper,
+                             @Value("${user.import.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    // Reads the CSV header right away, so a body that cannot be imported is rejected before the response starts
+    public UserImportReader open(InputStream body, MediaType contentType) {
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset));
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) {
+            return UserImportReader.ndjson(reader, objectMapper);
+        }
+        if (TEXT_CSV.isCompatibleWith(contentType)) {
+            return UserImportReader.csv(reader);
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+
+    @TimedOperation(service = "user")
+    public void importUsers(UserImportReader reader, Consumer<UserImportResult> consumer) {
+        long start = System.nanoTime();
+        Map<String, Integer> seen = new HashMap<>();
+        Map<Outcome, Integer> totals = new EnumMap<>(Outcome.class);
+        List<UserImportReader.Row> chunk = new ArrayList<>(chunkSize);
+        UserImportReader.Row row;
+        while ((row = reader.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seen, totals, consumer);
+                chunk.clear();
+            }
+        }
+        importChunk(chunk, seen, totals, consumer);
+
+        log.info("User import finished in {} ms: {}", (System.nanoTime() - start) / 1_000_000, totals);
+    }
+
+    private void importChunk(List<UserImportReader.Row> chunk, Map<String, Integer> seen, Map<Outcome, Integer> totals,
+                             Consumer<UserImportResult> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        UserImportResult[] results = new UserImportResult[chunk.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserImportReader.Row row = chunk.get(i);
+            String error = row.error() != null ? row.error() : violations(row.user());
+            if (error != null) {
+                String email = row.user() == null ? null : row.user().getEmail();
+                results[i] = new UserImportResult(row.line(), email, Outcome.INVALID, error);
+                continue;
+            }
+
+            Integer firstLine = seen.putIfAbsent(key(row.user().getEmail()), row.line());
+            if (firstLine != null) {
+                results[i] = new UserImportResult(row.line(), row.user().getEmail(), Outcome.DUPLICATE,
+                        "Email já enviado na linha " + firstLine);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<String> existing = new HashSet<>();
+            int lookedUp = -1;
+            boolean inserted = false;
+            while (!inserted) {
+                try {
+                    insertNewUsers(chunk, candidates, existing);
+                    inserted = true;
+                } catch (DuplicateKeyException e) {
+                    // Another request registered one of these emails between the lookup and the insert; the chunk was
+                    // rolled back, and is tried again for as long as each lookup finds emails the one before had not.
+                    // A conflict the lookup cannot see is not a race with a registration, so it is not retried
+                    if (existing.size() == lookedUp) {
+                        throw e;
+                    }
+                    lookedUp = existing.size();
+                    log.debug("User import chunk conflicted with a concurrent registration, retrying");
+                }
+            }
+            evictEmailLookups();
+
+            for (int i : candidates) {
+                NewUserDTO user = chunk.get(i).user();
+                results[i] = existing.contains(key(user.getEmail()))
+                        ? new UserImportResult(chunk.get(i).line(), user.getEmail(), Outcome.EXISTS, "Email já cadastrado no sistema")
+                        : new UserImportResult(chunk.get(i).line(), user.getEmail(), Outcome.CREATED, null);
+            }
+        }
+
+        for (UserImportResult result : results) {
+            totals.merge(result.outcome(), 1, Integer::sum);
+            consumer.accept(result);
+        }
+    }
+
+    // Adds the keys of the candidates already registered to existing, then inserts the others
+    private void insertNewUsers(List<UserImportReader.Row> chunk, List<Integer> candidates, Set<String> existing) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> emails = candidates.stream().map(i -> chunk.get(i).user().getEmail()).toList();
+            String placeholders = String.join(", ", Collections.nCopies(emails.size(), "?"));
+            jdbcTemplate.queryForList("SELECT email FROM users WHERE email IN (" + placeholders + ")", String.class,
+                            emails.toArray())
+                    .forEach(email -> existing.add(key(email)));
+
+            List<Object[]> rows = new ArrayList<>(candidates.size());
+            for (int i : candidates) {
+                NewUserDTO newUser = chunk.get(i).user();
+                if (!existing.contains(key(newUser.getEmail()))) {
+                    User user = newUser.toModel();
+                    rows.add(new Object[] {Timestamp.valueOf(user.getCreatedAt()), user.getName(), user.getEmail(),
+                            user.getRole().name(), user.getPassword()});
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (createdAt, name, email, role, password) VALUES (?, ?, ?, ?, ?)", rows);
+        });
+    }
+
+    // The same messages POST /user/new answers with, as "field: message"
+    private String violations(NewUserDTO user) {
+        Set<ConstraintViolation<NewUserDTO>> violations = validator.validate(user);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // The inserts bypass Hibernate, so cached findByEmail results, misses included, are dropped after each commit;
+    // they have a query cache region of their own, and no other cached query is touched
+    private void evictEmailLookups() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(UserRepository.EMAIL_LOOKUP_REGION);
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
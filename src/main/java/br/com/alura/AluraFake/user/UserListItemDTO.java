@@ -8,6 +8,13 @@ public class UserListItemDTO implements Serializable {
     private String email;
     private Role role;
 
+    // Constructor expression of UserRepository.findListItems
+    public UserListItemDTO(String name, String email, Role role) {
+        this.name = name;
+        this.email = email;
+        this.role = role;
+    }
+
     public UserListItemDTO(User user) {
         this.name = user.getName();
         this.email = user.getEmail();
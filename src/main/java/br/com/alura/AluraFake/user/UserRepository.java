@@ -1,13 +1,32 @@
 package br.com.alura.AluraFake.user;
 
-
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    // Only the listed columns, so the password never leaves the database
+    @Query("SELECT new br.com.alura.AluraFake.user.UserListItemDTO(u.name, u.email, u.role) FROM User u")
+    Slice<UserListItemDTO> findListItems(Pageable pageable);
+
+    // Query cache region of findByEmail, so the user import can drop just these results after inserting through JDBC
+    String EMAIL_LOOKUP_REGION = "user-email";
+
+    // Result kept in the query cache; any write to users invalidates it
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = EMAIL_LOOKUP_REGION)
+    })
     Optional<User> findByEmail(String email);
 }
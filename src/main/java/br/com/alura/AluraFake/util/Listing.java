@@ -0,0 +1,42 @@
+package br.com.alura.AluraFake.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.util.List;
+import java.util.Set;
+
+// Paginated listings (?page=0&size=50&sort=title,desc): the page size is capped by spring.data.web.pageable.max-page-size,
+// sorting is limited to indexed columns, and the body stays a plain JSON array, with the next page in a Link header.
+public class Listing {
+
+    // Only properties listed as sortable are accepted; id is always the last key, so rows sharing a value keep the
+    // same order from one page to the next
+    public static Pageable sortedBy(Pageable pageable, Set<String> sortable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!sortable.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + order.getProperty() + "; use one of " + sortable);
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") == null
+                ? pageable.getSort().and(Sort.by("id"))
+                : pageable.getSort();
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    public static <T> ResponseEntity<List<T>> ok(Slice<T> slice) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", slice.getNumber() + 1)
+                    .build()
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(slice.getContent());
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.alura.AluraFake.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class StatementHash {
+
+    // Fingerprint of a task statement: SHA-256 of the trimmed text as 64 lowercase hex characters.
+    // Fixed width, so it can be indexed where the TEXT column cannot.
+    public static String of(String statement) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(statement.trim().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package db.migration;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+// Java migration because H2 and MySQL have no common SQL function for SHA-256, and the backfill
+// must produce exactly what the application computed on insert when this version was written
+public class V6__addTaskStatementHash extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        // The old key compared the raw text, the hash compares it trimmed; statements that only differ in surrounding
+        // whitespace must be told apart by hand before the new key can hold. Checked before any change, since DDL
+        // commits on MySQL and a half-applied migration could not simply be run again
+        List<String> collisions = findTrimmedCollisions(connection);
+        if (!collisions.isEmpty()) {
+            throw new FlywayException("Tasks of the same course whose statements only differ in surrounding whitespace; "
+                    + "edit one of each pair before migrating: " + String.join(", ", collisions));
+        }
+
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("ALTER TABLE task ADD COLUMN statement_hash CHAR(64) NOT NULL DEFAULT ''");
+        }
+
+        try (Statement select = connection.createStatement();
+             ResultSet tasks = select.executeQuery("SELECT id, statement FROM task");
+             PreparedStatement update = connection.prepareStatement("UPDATE task SET statement_hash = ? WHERE id = ?")) {
+            int pending = 0;
+            while (tasks.next()) {
+                update.setString(1, hash(tasks.getString("statement")));
+                update.setLong(2, tasks.getLong("id"));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+
+        // The new key is created before the old one is dropped, so fk_task_course always keeps an index on course_id
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("ALTER TABLE task ADD CONSTRAINT uk_task_course_statement_hash UNIQUE (course_id, statement_hash)");
+            ddl.execute("ALTER TABLE task DROP CONSTRAINT uk_task_course_statement");
+        }
+    }
+
+    // "course 1: tasks 10 and 11" for each task whose hash an earlier task of its course already has; read a course
+    // at a time, so only one course's hashes are held
+    private static List<String> findTrimmedCollisions(Connection connection) throws Exception {
+        List<String> collisions = new ArrayList<>();
+        try (Statement select = connection.createStatement();
+             ResultSet tasks = select.executeQuery("SELECT id, course_id, statement FROM task ORDER BY course_id, id")) {
+            long course = -1;
+            Map<String, Long> firstTaskByHash = new HashMap<>();
+            while (tasks.next()) {
+                if (tasks.getLong("course_id") != course) {
+                    course = tasks.getLong("course_id");
+                    firstTaskByHash.clear();
+                }
+                long id = tasks.getLong("id");
+                Long first = firstTaskByHash.putIfAbsent(hash(tasks.getString("statement")), id);
+                if (first != null) {
+                    collisions.add("course " + course + ": tasks " + first + " and " + id);
+                }
+            }
+        }
+        return collisions;
+    }
+
+    // SHA-256 of the trimmed statement as 64 lowercase hex characters. A copy of what StatementHash computed when this
+    // migration was written, so later changes to the application cannot change what this version applied
+    private static String hash(String statement) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(statement.trim().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
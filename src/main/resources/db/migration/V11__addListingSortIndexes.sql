@@ -0,0 +1,3 @@
+CREATE INDEX idx_course_title ON Course (title);
+
+CREATE INDEX idx_users_name ON Users (name);
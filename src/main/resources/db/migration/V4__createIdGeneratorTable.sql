@@ -0,0 +1,11 @@
+CREATE TABLE id_generator (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+);
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'task', COALESCE(MAX(id), 0) + 1 FROM task;
+
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'task_option', COALESCE(MAX(id), 0) + 1 FROM task_option;
@@ -0,0 +1,5 @@
+ALTER TABLE task ADD COLUMN task_rank BIGINT NOT NULL DEFAULT 0;
+
+UPDATE task SET task_rank = task_order * 1024;
+
+ALTER TABLE task DROP COLUMN task_order;
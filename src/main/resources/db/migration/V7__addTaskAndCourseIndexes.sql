@@ -0,0 +1,11 @@
+-- Tasks created concurrently may share a task_order, and V5 turned equal orders into equal ranks; each course's ranks
+-- are spread again, in their current order, so the unique key below can be built
+UPDATE task SET task_rank = (
+    SELECT spread.new_rank
+    FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY course_id ORDER BY task_rank, id) * 1024 AS new_rank FROM task) spread
+    WHERE spread.id = task.id
+);
+
+CREATE UNIQUE INDEX uk_task_course_rank ON task (course_id, task_rank);
+
+CREATE INDEX idx_course_instructor_status ON Course (instructor_id, status);
@@ -0,0 +1,10 @@
+ALTER TABLE Course ADD COLUMN taskCount INT NOT NULL DEFAULT 0;
+ALTER TABLE Course ADD COLUMN openTextTaskCount INT NOT NULL DEFAULT 0;
+ALTER TABLE Course ADD COLUMN singleChoiceTaskCount INT NOT NULL DEFAULT 0;
+ALTER TABLE Course ADD COLUMN multipleChoiceTaskCount INT NOT NULL DEFAULT 0;
+
+UPDATE Course SET
+    taskCount = (SELECT COUNT(*) FROM task t WHERE t.course_id = Course.id),
+    openTextTaskCount = (SELECT COUNT(*) FROM task t WHERE t.course_id = Course.id AND t.type = 'OPEN_TEXT'),
+    singleChoiceTaskCount = (SELECT COUNT(*) FROM task t WHERE t.course_id = Course.id AND t.type = 'SINGLE_CHOICE'),
+    multipleChoiceTaskCount = (SELECT COUNT(*) FROM task t WHERE t.course_id = Course.id AND t.type = 'MULTIPLE_CHOICE');
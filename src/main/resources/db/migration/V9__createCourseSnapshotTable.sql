@@ -0,0 +1,7 @@
+CREATE TABLE course_snapshot (
+    course_id BIGINT NOT NULL,
+    createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    content LONGBLOB NOT NULL,
+    PRIMARY KEY (course_id),
+    CONSTRAINT FK_Snapshot_Course FOREIGN KEY (course_id) REFERENCES Course(id) ON DELETE CASCADE
+);
@@ -0,0 +1,184 @@
+package br.com.alura.AluraFake;
+
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Guards the access paths behind the task and course repositories: each repository method is called, the SQL
+// Hibernate sent for it is recorded with its bound values, and H2 must answer that SQL through an index lookup on
+// its filter columns, never with a full table scan
+@DataJpaTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    private static final StatementRecorder recorder = new StatementRecorder();
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countTasksOfACourse() {
+        assertServedByIndex(() -> taskRepository.countByCourseId(1L), "COURSE_ID =");
+    }
+
+    @Test
+    void courseSequencePositions() {
+        assertServedByIndex(() -> taskRepository.findPositionsByCourseId(1L), "COURSE_ID =");
+    }
+
+    @Test
+    void tasksPrecedingATask() {
+        assertServedByIndex(() -> taskRepository.countPreceding(1L, 2048L, 7L), "COURSE_ID =");
+    }
+
+    @Test
+    void keysetPageAcrossCourses() {
+        assertServedByIndex(() -> taskRepository.findPageAfter(1L, 2048L, 7L, Limit.of(50)), "COURSE_ID >=");
+    }
+
+    @Test
+    void keysetPageWithinACourse() {
+        assertServedByIndex(() -> taskRepository.findCoursePageAfter(1L, 2048L, 7L, Limit.of(50)), "COURSE_ID =");
+    }
+
+    @Test
+    void writeContextOfASingleInsert() {
+        assertServedByIndex(() -> taskRepository.findWriteContext(1L, "abc", 2, 3), "COURSE_ID =");
+    }
+
+    @Test
+    void duplicateStatementCheck() {
+        assertServedByIndex(() -> taskRepository.findExistingStatementHashes(1L, List.of("abc", "def")), "STATEMENT_HASH IN");
+    }
+
+    @Test
+    void rebalanceNegation() {
+        assertServedByIndex(() -> taskRepository.negateRanks(1L), "COURSE_ID =");
+    }
+
+    @Test
+    void coursesOfAnInstructor() {
+        User instructor = entityManager.persistFlushFind(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+
+        assertServedByIndex(() -> courseRepository.findByInstructor(instructor), "INSTRUCTOR_ID =");
+    }
+
+    @Test
+    void reportOfAnInstructor() {
+        assertServedByIndex(() -> courseRepository.findReportByInstructorId(2L), "INSTRUCTOR_ID =");
+    }
+
+    private void assertServedByIndex(Runnable repositoryCall, String indexCondition) {
+        entityManager.flush();
+        entityManager.clear();
+        List<QueryInfo> statements = recorder.record(repositoryCall);
+        assertThat(statements).isNotEmpty();
+
+        for (QueryInfo statement : statements) {
+            String plan = explain(statement);
+
+            // H2 annotates each access path as /* PUBLIC.<INDEX>: <condition served by the index> */
+            assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+            assertThat(plan).as(plan).containsPattern("/\\* PUBLIC\\.\\w+: [^*]*" + Pattern.quote(indexCondition));
+        }
+    }
+
+    // EXPLAIN of the recorded SQL, bound to the same values Hibernate bound
+    private String explain(QueryInfo statement) {
+        List<ParameterSetOperation> parameters = statement.getParametersList().isEmpty()
+                ? List.of()
+                : statement.getParametersList().get(0).stream()
+                        .sorted(Comparator.comparingInt(operation -> (Integer) operation.getArgs()[0]))
+                        .toList();
+        List<String> plan = jdbcTemplate.query("EXPLAIN " + statement.getQuery(), preparedStatement -> {
+            for (ParameterSetOperation parameter : parameters) {
+                Object[] args = parameter.getArgs();
+                if (ParameterSetOperation.isSetNullParameterOperation(parameter)) {
+                    preparedStatement.setNull((Integer) args[0], (Integer) args[1]);
+                } else {
+                    preparedStatement.setObject((Integer) args[0], args[1]);
+                }
+            }
+        }, (resultSet, row) -> resultSet.getString(1));
+        return String.join("\n", plan);
+    }
+
+    @TestConfiguration
+    static class RecordingDataSourceConfiguration {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return ProxyDataSourceBuilder.create(beanName, dataSource).listener(recorder).build();
+                }
+            };
+        }
+    }
+
+    // Keeps the statements executed while a repository call runs
+    static class StatementRecorder implements QueryExecutionListener {
+
+        private final List<QueryInfo> statements = new ArrayList<>();
+        private boolean recording;
+
+        List<QueryInfo> record(Runnable call) {
+            statements.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return List.copyOf(statements);
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (recording) {
+                statements.addAll(queryInfoList);
+            }
+        }
+    }
+}
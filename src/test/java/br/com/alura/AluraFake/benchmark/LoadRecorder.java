@@ -0,0 +1,67 @@
+package br.com.alura.AluraFake.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency of every request, per endpoint, in an HdrHistogram that many client threads record into at once.
+// Latencies are kept with 3 significant digits up to one minute; anything slower is clamped to the maximum.
+final class LoadRecorder {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean error) {
+        Endpoint recorded = endpoints.computeIfAbsent(endpoint, name -> new Endpoint());
+        recorded.latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        if (error) {
+            recorded.errors.increment();
+        }
+    }
+
+    // Forgets everything recorded so far, e.g. at the end of the warmup
+    void reset() {
+        endpoints.values().forEach(endpoint -> {
+            endpoint.latencies.reset();
+            endpoint.errors.reset();
+        });
+    }
+
+    List<EndpointStats> stats(Duration window) {
+        return endpoints.entrySet().stream()
+                .map(entry -> EndpointStats.of(entry.getKey(), entry.getValue().latencies.copy(),
+                        entry.getValue().errors.sum(), window))
+                .sorted(Comparator.comparing(EndpointStats::endpoint))
+                .toList();
+    }
+
+    private static final class Endpoint {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    record EndpointStats(String endpoint, long requests, long errors, double throughput,
+                         double p50Millis, double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static EndpointStats of(String endpoint, Histogram latencies, long errors, Duration window) {
+            return new EndpointStats(endpoint, latencies.getTotalCount(), errors,
+                    latencies.getTotalCount() / (window.toNanos() / 1e9),
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
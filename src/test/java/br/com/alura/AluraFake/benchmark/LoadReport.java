@@ -0,0 +1,71 @@
+package br.com.alura.AluraFake.benchmark;
+
+import br.com.alura.AluraFake.benchmark.LoadRecorder.EndpointStats;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Per-endpoint results as a console table and as a CSV with one row per endpoint, sorted by endpoint, so the
+// reports of two releases can be diffed line by line or compared here against a baseline.
+final class LoadReport {
+
+    private static final String CSV_HEADER = "endpoint,requests,errors,req_per_s,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms";
+
+    private LoadReport() {}
+
+    static String table(String title, List<EndpointStats> results) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%n%s%n%-32s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                title, "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        results.forEach(result -> table.append(String.format(Locale.ROOT, "%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                result.endpoint(), result.requests(), result.errors(), result.throughput(), result.p50Millis(),
+                result.p90Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis())));
+        return table.toString();
+    }
+
+    static void writeCsv(Path file, List<EndpointStats> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        results.forEach(result -> lines.add(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                result.endpoint(), result.requests(), result.errors(), result.throughput(), result.p50Millis(),
+                result.p90Millis(), result.p99Millis(), result.p999Millis(), result.maxMillis())));
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines);
+    }
+
+    // Throughput and p99 of each endpoint relative to a report written by an earlier run
+    static String compare(Path baseline, List<EndpointStats> results) throws IOException {
+        Map<String, String[]> previous = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(baseline)) {
+            if (!line.equals(CSV_HEADER) && !line.isBlank()) {
+                String[] columns = line.split(",");
+                previous.put(columns[0], columns);
+            }
+        }
+
+        StringBuilder comparison = new StringBuilder(String.format(Locale.ROOT, "%nCompared with %s%n%-32s %12s %12s%n",
+                baseline, "endpoint", "req/s", "p99"));
+        for (EndpointStats result : results) {
+            String[] before = previous.get(result.endpoint());
+            if (before == null) {
+                comparison.append(String.format(Locale.ROOT, "%-32s %12s %12s%n", result.endpoint(), "new", "new"));
+                continue;
+            }
+            comparison.append(String.format(Locale.ROOT, "%-32s %12s %12s%n", result.endpoint(),
+                    change(Double.parseDouble(before[3]), result.throughput()),
+                    change(Double.parseDouble(before[6]), result.p99Millis())));
+        }
+        return comparison.toString();
+    }
+
+    private static String change(double before, double after) {
+        if (before == 0) {
+            return "n/a";
+        }
+        return String.format(Locale.ROOT, "%+.1f%%", (after - before) / before * 100);
+    }
+}
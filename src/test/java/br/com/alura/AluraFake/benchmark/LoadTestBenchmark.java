@@ -0,0 +1,197 @@
+package br.com.alura.AluraFake.benchmark;
+
+import br.com.alura.AluraFake.AluraFakeApplication;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Boots the application on the H2 test profile and replays instructors authoring courses: each virtual user creates a
+// course, finds it in its report, adds one task of each type, publishes it, and reads the course's tasks and the report
+// between writes. Each user sends one request every load.intervalMillis on a fixed schedule (Pacer), so a slow response
+// delays the user's next requests and that delay shows up in their latency. Latencies go to one HdrHistogram per
+// endpoint; the report is written to target/load-test/report.csv.
+// Runs only with: ./mvnw -Pbenchmark test -Dtest=LoadTestBenchmark [-Dload.users=50 -Dload.intervalMillis=100
+//     -Dload.seconds=30 -Dload.warmup=10 -Dload.readsPerWrite=3 -Dload.baseline=path/to/previous/report.csv]
+@Tag("benchmark")
+class LoadTestBenchmark {
+
+    private static final int USERS = Integer.getInteger("load.users", 50);
+    private static final Duration INTERVAL = Duration.ofMillis(Integer.getInteger("load.intervalMillis", 100));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Integer.getInteger("load.seconds", 30));
+    private static final int READS_PER_WRITE = Integer.getInteger("load.readsPerWrite", 3);
+    private static final Path REPORT = Path.of(System.getProperty("load.report", "target/load-test/report.csv"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoadRecorder recorder = new LoadRecorder();
+
+    @Test
+    void replayCourseAuthoringMix() throws Exception {
+        try (ConfigurableApplicationContext application = new SpringApplicationBuilder(AluraFakeApplication.class)
+                .profiles("test")
+                .run("--server.port=0");
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+            HttpClient http = HttpClient.newBuilder().executor(users).build();
+
+            // One instructor per virtual user, so each report only grows with that user's own courses
+            UserRepository userRepository = application.getBean(UserRepository.class);
+            List<User> instructors = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                instructors.add(userRepository.save(new User("Instrutor " + i, "instrutor" + i + "@alura.com.br", Role.INSTRUCTOR)));
+            }
+
+            run(users, http, baseUri, instructors, WARMUP);
+            recorder.reset();
+            run(users, http, baseUri, instructors, MEASUREMENT);
+        }
+
+        List<LoadRecorder.EndpointStats> results = recorder.stats(MEASUREMENT);
+        System.out.print(LoadReport.table(USERS + " users, one request every " + INTERVAL.toMillis() + " ms each, "
+                + MEASUREMENT.toSeconds() + "s", results));
+        LoadReport.writeCsv(REPORT, results);
+        String baseline = System.getProperty("load.baseline");
+        if (baseline != null) {
+            System.out.print(LoadReport.compare(Path.of(baseline), results));
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.errors()).isZero());
+    }
+
+    private void run(ExecutorService users, HttpClient http, URI baseUri, List<User> instructors, Duration window)
+            throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + window.toNanos();
+        List<Future<?>> sessions = new ArrayList<>();
+        for (int user = 0; user < instructors.size(); user++) {
+            User instructor = instructors.get(user);
+            Client client = new Client(http, baseUri, Pacer.staggered(INTERVAL, start, user, instructors.size()), deadline);
+            sessions.add(users.submit(() -> {
+                while (!client.expired()) {
+                    authorCourse(client, instructor);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> session : sessions) {
+            session.get();
+        }
+    }
+
+    private void authorCourse(Client client, User instructor) throws IOException, InterruptedException {
+        String reportPath = "/instructor/" + instructor.getId() + "/courses";
+        client.send("POST /course/new", client.post("/course/new", """
+                {"title": "Java", "description": "Curso de Java para iniciantes", "emailInstructor": "%s"}
+                """.formatted(instructor.getEmail())));
+
+        // The creation answers 201 without a body: the newest course in the instructor's report is the one just created
+        Optional<Long> courseId = client.send("GET /instructor/{id}/courses", client.get(reportPath))
+                .map(this::newestCourseId);
+        if (courseId.isEmpty()) {
+            return;
+        }
+
+        String tasksPath = "/tasks?courseId=" + courseId.get() + "&limit=50";
+        List<String> writes = List.of(
+                """
+                {"courseId": %d, "statement": "O que aprendemos na aula de hoje?", "order": 1}
+                """,
+                """
+                {"courseId": %d, "statement": "Qual linguagem roda na JVM?", "order": 2, "options": [
+                    {"option": "Java", "isCorrect": true}, {"option": "Ruby", "isCorrect": false},
+                    {"option": "Python", "isCorrect": false}]}
+                """,
+                """
+                {"courseId": %d, "statement": "Quais linguagens rodam na JVM?", "order": 3, "options": [
+                    {"option": "Java", "isCorrect": true}, {"option": "Kotlin", "isCorrect": true},
+                    {"option": "Python", "isCorrect": false}]}
+                """);
+        List<String> endpoints = List.of("/task/new/opentext", "/task/new/singlechoice", "/task/new/multiplechoice");
+        for (int i = 0; i < writes.size(); i++) {
+            client.send("POST " + endpoints.get(i), client.post(endpoints.get(i), writes.get(i).formatted(courseId.get())));
+            for (int read = 0; read < READS_PER_WRITE; read++) {
+                if (read % 2 == 0) {
+                    client.send("GET /tasks", client.get(tasksPath));
+                } else {
+                    client.send("GET /instructor/{id}/courses", client.get(reportPath));
+                }
+            }
+        }
+
+        client.send("POST /course/{id}/publish", client.post("/course/" + courseId.get() + "/publish", ""));
+    }
+
+    private Long newestCourseId(String report) {
+        try {
+            long newest = -1;
+            for (JsonNode course : objectMapper.readTree(report).path("courses")) {
+                newest = Math.max(newest, course.path("id").asLong());
+            }
+            return newest < 0 ? null : newest;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable instructor report", e);
+        }
+    }
+
+    // Sends requests for one virtual user on its schedule; only requests due before the deadline are recorded
+    private final class Client {
+
+        private final HttpClient http;
+        private final URI baseUri;
+        private final Pacer pacer;
+        private final long deadline;
+
+        private Client(HttpClient http, URI baseUri, Pacer pacer, long deadline) {
+            this.http = http;
+            this.baseUri = baseUri;
+            this.pacer = pacer;
+            this.deadline = deadline;
+        }
+
+        boolean expired() {
+            return System.nanoTime() >= deadline;
+        }
+
+        HttpRequest get(String path) {
+            return HttpRequest.newBuilder(baseUri.resolve(path)).build();
+        }
+
+        HttpRequest post(String path, String json) {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        }
+
+        // The body of a successful response; empty when the request failed
+        Optional<String> send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+            long scheduled = pacer.awaitNext();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            boolean error = response.statusCode() >= 400;
+            if (scheduled < deadline) {
+                recorder.record(endpoint, System.nanoTime() - scheduled, error);
+            }
+            return error ? Optional.empty() : Optional.of(response.body());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.alura.AluraFake.benchmark;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Open-loop schedule for one client: request k is due at start + k * interval, whether or not the previous response
+// has arrived. A client that falls behind sends its overdue requests right away, and latency is measured from when a
+// request was due rather than from when it was sent, so time spent queued behind a slow response is counted instead
+// of silently lowering the offered load (coordinated omission).
+final class Pacer {
+
+    private final long intervalNanos;
+    private long due;
+
+    Pacer(Duration interval, long startNanos) {
+        this.intervalNanos = interval.toNanos();
+        this.due = startNanos;
+    }
+
+    // Spreads the clients' first requests over one interval, so they do not all fire on the same tick
+    static Pacer staggered(Duration interval, long startNanos, int client, int clients) {
+        return new Pacer(interval, startNanos + interval.toNanos() * client / clients);
+    }
+
+    // Waits until the next request is due and returns when it was due
+    long awaitNext() throws InterruptedException {
+        long scheduled = due;
+        due += intervalNanos;
+        long wait = scheduled - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return scheduled;
+    }
+}
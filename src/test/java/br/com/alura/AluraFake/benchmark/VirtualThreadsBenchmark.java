@@ -0,0 +1,149 @@
+package br.com.alura.AluraFake.benchmark;
+
+import br.com.alura.AluraFake.AluraFakeApplication;
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Throughput and tail latency of task creation and the instructor report, served by platform threads and then by
+// virtual threads (application-virtual.properties), each on a fresh application and database with the same connection
+// pool. Load is open-loop: the clients together offer benchmark.rate requests per second on a fixed schedule (Pacer).
+// Runs only with: mvn -Pbenchmark test [-Dbenchmark.clients=400 -Dbenchmark.rate=2000 -Dbenchmark.seconds=20]
+@Tag("benchmark")
+class VirtualThreadsBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int RATE = Integer.getInteger("benchmark.rate", 2000);
+    // Both modes get the same pool, so the comparison only changes how requests are threaded
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.poolSize", 10);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("benchmark.warmup", 5));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 15));
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        List<LoadRecorder.EndpointStats> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[] {false, true}) {
+            List<LoadRecorder.EndpointStats> mode = run(virtualThreads);
+            System.out.print(LoadReport.table((virtualThreads ? "virtual" : "platform") + " threads, " + RATE
+                    + " req/s offered", mode));
+            results.addAll(mode);
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.errors()).isZero());
+    }
+
+    private List<LoadRecorder.EndpointStats> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(AluraFakeApplication.class);
+        if (virtualThreads) {
+            builder.profiles("virtual");
+        }
+
+        try (ConfigurableApplicationContext application = builder.run(
+                "--server.port=0",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode + ";DB_CLOSE_DELAY=-1;MODE=LEGACY");
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            URI baseUri = URI.create("http://localhost:" + application.getEnvironment().getProperty("local.server.port"));
+
+            // One course per client, so each client appends to its own sequence
+            UserRepository userRepository = application.getBean(UserRepository.class);
+            CourseRepository courseRepository = application.getBean(CourseRepository.class);
+            User instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+            List<Long> courseIds = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                courseIds.add(courseRepository.save(new Course("Course " + i, "Benchmark course", instructor)).getId());
+            }
+
+            HttpClient http = HttpClient.newBuilder().executor(clients).build();
+            Load createTasks = new Load("POST /task/new/opentext", http, clients, client -> {
+                long courseId = courseIds.get(client);
+                AtomicLong order = new AtomicLong();
+                return () -> {
+                    long next = order.incrementAndGet();
+                    String body = "{\"courseId\":" + courseId + ",\"statement\":\"Benchmark question " + next
+                            + "\",\"order\":" + next + "}";
+                    return HttpRequest.newBuilder(baseUri.resolve("/task/new/opentext"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                };
+            });
+            Load report = new Load("GET /instructor/{id}/courses", http, clients, client -> {
+                HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/instructor/" + instructor.getId() + "/courses")).build();
+                return () -> request;
+            });
+
+            List<LoadRecorder.EndpointStats> results = new ArrayList<>();
+            results.addAll(createTasks.run());
+            results.addAll(report.run());
+            return results;
+        }
+    }
+
+    // Each client sends its own request sequence on its own schedule, for the warmup and then the measurement window
+    private record Load(String endpoint, HttpClient http, ExecutorService clients, RequestsPerClient requests) {
+
+        List<LoadRecorder.EndpointStats> run() throws Exception {
+            List<RequestSequence> sequences = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                sequences.add(requests.forClient(client));
+            }
+            LoadRecorder recorder = new LoadRecorder();
+            measure(sequences, recorder, WARMUP);
+            recorder.reset();
+            measure(sequences, recorder, MEASUREMENT);
+            return recorder.stats(MEASUREMENT);
+        }
+
+        private void measure(List<RequestSequence> sequences, LoadRecorder recorder, Duration window) throws Exception {
+            Duration interval = Duration.ofNanos(1_000_000_000L * CLIENTS / RATE);
+            long start = System.nanoTime();
+            long deadline = start + window.toNanos();
+            List<Future<?>> running = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                RequestSequence sequence = sequences.get(client);
+                Pacer pacer = Pacer.staggered(interval, start, client, CLIENTS);
+                running.add(clients.submit(() -> {
+                    long scheduled;
+                    while ((scheduled = pacer.awaitNext()) < deadline) {
+                        HttpResponse<Void> response = http.send(sequence.next(), HttpResponse.BodyHandlers.discarding());
+                        recorder.record(endpoint, System.nanoTime() - scheduled, response.statusCode() >= 400);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : running) {
+                client.get();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestsPerClient {
+        RequestSequence forClient(int client);
+    }
+
+    @FunctionalInterface
+    private interface RequestSequence {
+        HttpRequest next();
+    }
+}
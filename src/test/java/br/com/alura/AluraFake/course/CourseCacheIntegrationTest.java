@@ -0,0 +1,191 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskItemRequest;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskRequest;
+import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
+import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserImportService;
+import br.com.alura.AluraFake.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Runs without a test transaction: only committed writes reach the second-level cache
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureWebMvc
+class CourseCacheIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private CourseSnapshotRepository courseSnapshotRepository;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User instructor;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        entityManagerFactory.getCache().evictAll();
+
+        instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        courseSnapshotRepository.deleteAllInBatch();
+        taskRepository.deleteAll();
+        courseRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupByEmailFromTheQueryCache() {
+        // Given
+        userRepository.findByEmail("paulo@alura.com.br").orElseThrow();
+        statistics.clear();
+
+        // When
+        User user = userRepository.findByEmail("paulo@alura.com.br").orElseThrow();
+
+        // Then
+        assertThat(user.getId()).isEqualTo(instructor.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void shouldNotServeACachedMissForAnImportedUser() {
+        // Given - the lookup of a user not registered yet is cached in the email region
+        assertThat(userRepository.findByEmail("ana@alura.com.br")).isEmpty();
+        assertThat(statistics.getQueryRegionStatistics(UserRepository.EMAIL_LOOKUP_REGION).getPutCount()).isEqualTo(1);
+
+        // When
+        userImportService.importUsers(userImportService.open(
+                new ByteArrayInputStream("name,email,role\nAna Souza,ana@alura.com.br,STUDENT\n".getBytes(StandardCharsets.UTF_8)),
+                UserImportService.TEXT_CSV), result -> {});
+
+        // Then - the import's JDBC insert dropped the cached miss
+        assertThat(userRepository.findByEmail("ana@alura.com.br")).isPresent();
+    }
+
+    @Test
+    void shouldEvictOnlyTheCourseWhoseCountersChanged() throws Exception {
+        // Given
+        Course changedCourse = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        Course untouchedCourse = courseRepository.save(new Course("Spring", "Aprenda Spring", instructor));
+        courseRepository.findById(changedCourse.getId()).orElseThrow();
+        courseRepository.findById(untouchedCourse.getId()).orElseThrow();
+
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OpenTextTaskRequest(changedCourse.getId(), "O que aprendemos hoje?", 1))))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        // When
+        courseRepository.findById(untouchedCourse.getId()).orElseThrow();
+        long statementsForUntouchedCourse = statistics.getPrepareStatementCount();
+        Course reloaded = courseRepository.findById(changedCourse.getId()).orElseThrow();
+
+        // Then - the counter update dropped one entry instead of the whole region
+        assertThat(statementsForUntouchedCourse).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(reloaded.getTaskCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotServeCachedBuildingStatusAfterPublishing() throws Exception {
+        // Given
+        Course course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        BulkTaskRequest tasks = new BulkTaskRequest(List.of(
+                new BulkTaskItemRequest(Type.OPEN_TEXT, "O que aprendemos hoje?", 1, null),
+                new BulkTaskItemRequest(Type.SINGLE_CHOICE, "Qual linguagem usamos?", 2, List.of(
+                        new TaskOptionRequest("Java", true),
+                        new TaskOptionRequest("Ruby", false))),
+                new BulkTaskItemRequest(Type.MULTIPLE_CHOICE, "Quais são linguagens?", 3, List.of(
+                        new TaskOptionRequest("Java", true),
+                        new TaskOptionRequest("Kotlin", true),
+                        new TaskOptionRequest("HTML", false)))
+        ));
+        mockMvc.perform(post("/course/{id}/tasks/bulk", course.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(tasks)))
+                .andExpect(status().isOk());
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getStatus()).isEqualTo(Status.BUILDING);
+
+        // When
+        mockMvc.perform(post("/course/{id}/publish", course.getId()))
+                .andExpect(status().isOk());
+
+        // Then
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getStatus()).isEqualTo(Status.PUBLISHED);
+    }
+
+    @Test
+    void shouldExposeCacheStatisticsThroughActuator() throws Exception {
+        // Given
+        Course course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        courseRepository.findById(course.getId()).orElseThrow();
+
+        // When & Then
+        mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:course"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'result')].values[*]").exists());
+        mockMvc.perform(get("/actuator/metrics/cache.evictions").param("tag", "cache:course"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,226 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.exception.CourseNotFoundException;
+import br.com.alura.AluraFake.exception.InvalidCourseStateException;
+import br.com.alura.AluraFake.task.TaskService;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseContentServiceTest {
+
+    @Mock
+    private CourseSnapshotRepository courseSnapshotRepository;
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private TaskService taskService;
+
+    @Mock
+    private CourseWriteGuard courseWriteGuard;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CourseContentService courseContentService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(courseWriteGuard.write(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        courseContentService = new CourseContentService(courseSnapshotRepository, courseRepository, taskService,
+                courseWriteGuard, objectMapper, meterRegistry, DataSize.ofKilobytes(1));
+    }
+
+    @Nested
+    class GetContentTests {
+
+        @Test
+        void shouldServeCachedContentWithoutReadingTheSnapshotAgain() {
+            // Given
+            byte[] json = "{\"id\":1,\"tasks\":[]}".getBytes(StandardCharsets.UTF_8);
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.of(json));
+
+            // When
+            CourseContent first = courseContentService.getContent(1L);
+            CourseContent second = courseContentService.getContent(1L);
+
+            // Then
+            assertSame(first, second);
+            assertArrayEquals(json, second.json());
+            verify(courseSnapshotRepository, times(1)).findContentByCourseId(1L);
+            verifyNoInteractions(objectMapper);
+        }
+
+        @Test
+        void shouldEvictSnapshotsOnceTheCacheIsFull() {
+            // Given - each snapshot takes about 300 bytes of a 1 KB cache
+            for (long courseId = 1; courseId <= 10; courseId++) {
+                byte[] json = ("{\"id\":" + courseId + ",\"padding\":\"" + "x".repeat(300) + "\"}").getBytes(StandardCharsets.UTF_8);
+                when(courseSnapshotRepository.findContentByCourseId(courseId)).thenReturn(Optional.of(json));
+            }
+
+            // When
+            for (long courseId = 1; courseId <= 10; courseId++) {
+                courseContentService.getContent(courseId);
+            }
+
+            // Then - eviction runs in the background, so the meters are polled until it has
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+                assertTrue(meterRegistry.get("cache.size").tag("cache", "course.content").gauge().value() <= 3);
+                assertTrue(meterRegistry.get("cache.evictions").tag("cache", "course.content").functionCounter().count() >= 7);
+            });
+        }
+
+        @Test
+        void shouldCacheTheSnapshotBuiltOnAMiss() {
+            // Given
+            Course course = new Course("Java", "Aprenda Java", new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+            course.setAsPublished();
+            ReflectionTestUtils.setField(course, "id", 1L);
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.empty());
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+            when(taskService.findCourseTasks(1L)).thenReturn(List.of());
+
+            // When
+            CourseContent first = courseContentService.getContent(1L);
+            CourseContent second = courseContentService.getContent(1L);
+
+            // Then - looked up before and again under the course's stripe, then never read from the table again
+            assertSame(first, second);
+            verify(courseSnapshotRepository, times(2)).findContentByCourseId(1L);
+            verify(courseSnapshotRepository, times(1)).save(any(CourseSnapshot.class));
+        }
+
+        @Test
+        void shouldServeTheSnapshotAConcurrentFirstReadBuiltWhileThisOneWaited() {
+            // Given - missing on the first lookup, there once the course's stripe is taken
+            byte[] json = "{\"id\":1,\"tasks\":[]}".getBytes(StandardCharsets.UTF_8);
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.empty()).thenReturn(Optional.of(json));
+
+            // When
+            CourseContent content = courseContentService.getContent(1L);
+
+            // Then
+            assertArrayEquals(json, content.json());
+            verify(courseSnapshotRepository, never()).save(any(CourseSnapshot.class));
+            verifyNoInteractions(courseRepository, taskService);
+        }
+
+        @Test
+        void shouldServeTheWinningSnapshotWhenAnotherInstanceInsertedItFirst() {
+            // Given - the insert loses the primary key to a build committed elsewhere
+            byte[] json = "{\"id\":1,\"tasks\":[]}".getBytes(StandardCharsets.UTF_8);
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.empty()).thenReturn(Optional.of(json));
+            doThrow(new DataIntegrityViolationException("Duplicate entry")).when(courseWriteGuard).write(eq(1L), any());
+
+            // When
+            CourseContent content = courseContentService.getContent(1L);
+
+            // Then
+            assertArrayEquals(json, content.json());
+            assertSame(content, courseContentService.getContent(1L));
+        }
+
+        @Test
+        void shouldBuildMissingSnapshotOfPublishedCourse() {
+            // Given
+            Course course = new Course("Java", "Aprenda Java", new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+            course.setAsPublished();
+            ReflectionTestUtils.setField(course, "id", 1L);
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.empty());
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+            when(taskService.findCourseTasks(1L)).thenReturn(List.of());
+
+            // When
+            CourseContent content = courseContentService.getContent(1L);
+
+            // Then
+            assertTrue(new String(content.json(), StandardCharsets.UTF_8).contains("\"title\":\"Java\""));
+            verify(courseSnapshotRepository).save(any(CourseSnapshot.class));
+        }
+
+        @Test
+        void shouldRejectContentOfCourseStillBuilding() {
+            // Given
+            Course course = new Course("Java", "Aprenda Java", new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+            when(courseSnapshotRepository.findContentByCourseId(1L)).thenReturn(Optional.empty());
+            when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+
+            // When & Then
+            assertThrows(InvalidCourseStateException.class, () -> courseContentService.getContent(1L));
+            verify(courseSnapshotRepository, never()).save(any(CourseSnapshot.class));
+        }
+
+        @Test
+        void shouldThrowExceptionWhenCourseNotFound() {
+            // Given
+            when(courseSnapshotRepository.findContentByCourseId(999L)).thenReturn(Optional.empty());
+            when(courseRepository.findById(999L)).thenReturn(Optional.empty());
+
+            // When & Then
+            CourseNotFoundException exception = assertThrows(
+                    CourseNotFoundException.class,
+                    () -> courseContentService.getContent(999L)
+            );
+            assertEquals("Course not found with id: 999", exception.getMessage());
+        }
+    }
+
+    @Nested
+    class CourseContentEncodingTests {
+
+        @Test
+        void shouldPrecompressAndHashTheJson() throws Exception {
+            // Given
+            byte[] json = ("{\"tasks\":[" + "{\"statement\":\"What is Java?\"},".repeat(50) + "{}]}").getBytes(StandardCharsets.UTF_8);
+
+            // When
+            CourseContent content = CourseContent.of(json);
+
+            // Then
+            assertNotNull(content.gzip());
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content.gzip()))) {
+                assertArrayEquals(json, gzip.readAllBytes());
+            }
+            assertEquals(64, content.etag().length());
+            assertEquals(content.etag(), CourseContent.of(json.clone()).etag());
+        }
+
+        @Test
+        void shouldSkipCompressionWhenItDoesNotShrinkThePayload() {
+            // When
+            CourseContent content = CourseContent.of("{}".getBytes(StandardCharsets.UTF_8));
+
+            // Then
+            assertNull(content.gzip());
+        }
+    }
+}
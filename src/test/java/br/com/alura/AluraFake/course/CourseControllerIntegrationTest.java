@@ -1,25 +1,37 @@
 package br.com.alura.AluraFake.course;
 
+import br.com.alura.AluraFake.infra.DatabaseRoundTripsFilter;
+import br.com.alura.AluraFake.infra.StatementBudget;
+import br.com.alura.AluraFake.infra.StatementBudgetExtension;
 import br.com.alura.AluraFake.task.Task;
+import br.com.alura.AluraFake.task.TaskOption;
 import br.com.alura.AluraFake.task.TaskRepository;
 import br.com.alura.AluraFake.task.Type;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.user.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -33,6 +45,9 @@ class CourseControllerIntegrationTest {
     @Autowired
     private WebApplicationContext webApplicationContext;
 
+    @Autowired
+    private DatabaseRoundTripsFilter databaseRoundTripsFilter;
+
     private MockMvc mockMvc;
 
     @Autowired
@@ -47,12 +62,24 @@ class CourseControllerIntegrationTest {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private CourseSnapshotRepository courseSnapshotRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private User instructor;
 
     @BeforeEach
     void setUp() {
         // Configurar MockMvc manualmente
-        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(databaseRoundTripsFilter)
+                .alwaysDo(StatementBudgetExtension.recordStatements())
+                .build();
 
         instructor = new User("John Instructor", "john@instructor.com", Role.INSTRUCTOR);
         userRepository.save(instructor);
@@ -101,12 +128,15 @@ class CourseControllerIntegrationTest {
     }
 
     @Test
+    @StatementBudget(max = 1, endpoint = "GET /course/all")
     void shouldListAllCoursesFromDatabase() throws Exception {
         // Given
         Course course1 = new Course("Spring Boot", "Learn Spring Boot", instructor);
         Course course2 = new Course("JPA Basics", "Learn JPA fundamentals", instructor);
         courseRepository.save(course1);
         courseRepository.save(course2);
+        entityManager.flush();
+        entityManager.clear();
 
         // When & Then
         mockMvc.perform(get("/course/all"))
@@ -116,6 +146,29 @@ class CourseControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].title").value("Spring Boot"));
     }
 
+    @Test
+    @StatementBudget(max = 1, endpoint = "GET /course/all")
+    void shouldListCoursesOnePageAtATimeSortedByTitle() throws Exception {
+        // Given
+        courseRepository.save(new Course("Spring Boot", "Learn Spring Boot", instructor));
+        courseRepository.save(new Course("Algoritmos", "Learn algorithms", instructor));
+        entityManager.flush();
+        entityManager.clear();
+
+        // When & Then
+        mockMvc.perform(get("/course/all?size=2&sort=title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Algoritmos"))
+                .andExpect(jsonPath("$[1].title").value("Java"))
+                .andExpect(header().string("Link", "<http://localhost/course/all?size=2&sort=title&page=1>; rel=\"next\""));
+        mockMvc.perform(get("/course/all?size=2&sort=title&page=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Spring Boot"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
     @Test
     void shouldPublishCourseWithRealValidations() throws Exception {
         // Given
@@ -126,9 +179,11 @@ class CourseControllerIntegrationTest {
         Task singleChoiceTask = new Task(course.getId(), "Choose the correct answer", 2, Type.SINGLE_CHOICE);
         Task multipleChoiceTask = new Task(course.getId(), "Select all that apply", 3, Type.MULTIPLE_CHOICE);
 
-        taskRepository.save(openTextTask);
-        taskRepository.save(singleChoiceTask);
-        taskRepository.save(multipleChoiceTask);
+        saveTask(course, openTextTask);
+        saveTask(course, singleChoiceTask);
+        saveTask(course, multipleChoiceTask);
+        entityManager.flush();
+        entityManager.clear();
 
         // When & Then
         mockMvc.perform(post("/course/{id}/publish", course.getId()))
@@ -142,6 +197,94 @@ class CourseControllerIntegrationTest {
         assertThat(publishedCourse.getPublishedAt()).isNotNull();
     }
 
+    @Test
+    @StatementBudget(max = 1, endpoint = "GET /course/{id}/content")
+    void shouldServePublishedContentFromItsSnapshot() throws Exception {
+        // Given - a course published through the API, with tasks inserted out of order
+        Course course = new Course("Complete Java Course", "Full course", instructor);
+        courseRepository.save(course);
+
+        Task singleChoiceTask = new Task(course.getId(), "Choose the correct answer", 2, Type.SINGLE_CHOICE);
+        singleChoiceTask.setOptions(List.of(
+                new TaskOption("Java", true, singleChoiceTask),
+                new TaskOption("Python", false, singleChoiceTask)));
+        saveTask(course, singleChoiceTask);
+        saveTask(course, new Task(course.getId(), "What is Java?", 1, Type.OPEN_TEXT));
+        saveTask(course, new Task(course.getId(), "Select all that apply", 3, Type.MULTIPLE_CHOICE));
+
+        mockMvc.perform(post("/course/{id}/publish", course.getId()))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // When & Then
+        mockMvc.perform(get("/course/{id}/content", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id").value(course.getId()))
+                .andExpect(jsonPath("$.publishedAt").exists())
+                .andExpect(jsonPath("$.tasks[*].statement").value(contains("What is Java?", "Choose the correct answer", "Select all that apply")))
+                .andExpect(jsonPath("$.tasks[*].order").value(contains(1, 2, 3)))
+                .andExpect(jsonPath("$.tasks[1].options[*].option").value(contains("Java", "Python")));
+
+        // Only the snapshot bytes are read; no course, task or option is hydrated
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void shouldAnswerConditionalContentRequestWithNotModified() throws Exception {
+        // Given
+        Course course = new Course("Legacy Course", "Published without a snapshot", instructor);
+        course.setAsPublished();
+        courseRepository.save(course);
+        saveTask(course, new Task(course.getId(), "What is Java?", 1, Type.OPEN_TEXT));
+
+        String etag = mockMvc.perform(get("/course/{id}/content", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/course/{id}/content", course.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void shouldBuildMissingSnapshotForCoursePublishedBeforeSnapshotsExisted() throws Exception {
+        // Given
+        Course course = new Course("Legacy Course", "Published without a snapshot", instructor);
+        course.setAsPublished();
+        courseRepository.save(course);
+        saveTask(course, new Task(course.getId(), "What is Java?", 1, Type.OPEN_TEXT));
+
+        // When & Then
+        mockMvc.perform(get("/course/{id}/content", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tasks[0].statement").value("What is Java?"));
+
+        assertThat(courseSnapshotRepository.findContentByCourseId(course.getId())).isPresent();
+    }
+
+    @Test
+    void shouldRejectContentOfCourseStillBuilding() throws Exception {
+        // Given
+        Course course = new Course("Building Course", "Description", instructor);
+        courseRepository.save(course);
+
+        // When & Then
+        mockMvc.perform(get("/course/{id}/content", course.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Course must be PUBLISHED to have its content served"));
+    }
+
     @Test
     void shouldRejectPublishingCourseWithMissingTaskTypes() throws Exception {
         // Given
@@ -149,7 +292,7 @@ class CourseControllerIntegrationTest {
         courseRepository.save(course);
 
         Task onlyOpenTextTask = new Task(course.getId(), "What is Java?", 1, Type.OPEN_TEXT);
-        taskRepository.save(onlyOpenTextTask);
+        saveTask(course, onlyOpenTextTask);
 
         // When & Then
         mockMvc.perform(post("/course/{id}/publish", course.getId()))
@@ -161,27 +304,22 @@ class CourseControllerIntegrationTest {
     }
 
     @Test
-    void shouldRejectPublishingCourseWithInvalidTaskSequence() throws Exception {
-        // Given - Curso com sequência inválida de tasks
+    void shouldRejectTasksSharingTheSamePositionAtTheDatabase() {
+        // Given - Curso com duas tasks na mesma posição (1, 2, 2)
         Course course = new Course("Invalid Sequence Course", "Bad task order", instructor);
         courseRepository.save(course);
 
-        // Criar tasks com sequência inválida (1, 3, 4 - faltando 2)
-        Task task1 = new Task(course.getId(), "Question 1", 1, Type.OPEN_TEXT);
-        Task task3 = new Task(course.getId(), "Question 3", 3, Type.SINGLE_CHOICE);
-        Task task4 = new Task(course.getId(), "Question 4", 4, Type.MULTIPLE_CHOICE);
-
-        taskRepository.save(task1);
-        taskRepository.save(task3);
-        taskRepository.save(task4);
+        taskRepository.saveAndFlush(new Task(course.getId(), "Question 1", 1, Type.OPEN_TEXT));
+        taskRepository.saveAndFlush(new Task(course.getId(), "Question 2", 2, Type.SINGLE_CHOICE));
 
-        // When & Then
-        mockMvc.perform(post("/course/{id}/publish", course.getId()))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.message").value("Tasks must have continuous sequential order starting from 1"));
+        // When & Then - o índice único (course_id, task_rank) impede a sequência inválida de chegar à publicação
+        Task collidingTask = new Task(course.getId(), "Question 3", 2, Type.MULTIPLE_CHOICE);
+        assertThatThrownBy(() -> taskRepository.saveAndFlush(collidingTask))
+                .isInstanceOf(DataIntegrityViolationException.class);
     }
 
     @Test
+    @StatementBudget(max = 2, endpoint = "GET /instructor/{id}/courses")
     void shouldGenerateInstructorReport() throws Exception {
         // Given - create the course
         Long instructorId = 2L;
@@ -196,8 +334,10 @@ class CourseControllerIntegrationTest {
         // Add some tasks
         Task task1 = new Task(publishedCourse.getId(), "Task 1", 1, Type.OPEN_TEXT);
         Task task2 = new Task(buildingCourse.getId(), "Task 2", 1, Type.SINGLE_CHOICE);
-        taskRepository.save(task1);
-        taskRepository.save(task2);
+        saveTask(publishedCourse, task1);
+        saveTask(buildingCourse, task2);
+        entityManager.flush();
+        entityManager.clear();
 
         // When & Then
         mockMvc.perform(get("/instructor/{id}/courses", instructorId))
@@ -207,6 +347,40 @@ class CourseControllerIntegrationTest {
                 .andExpect(jsonPath("$.courses[0].title").value("Java"));
     }
 
+    @Test
+    @StatementBudget(max = 2, endpoint = "GET /instructor/{id}/courses")
+    void shouldBuildInstructorReportFromCourseCounters() throws Exception {
+        // Given - três cursos, um deles publicado e um sem tasks
+        Course publishedCourse = new Course("Published Course", "Description", instructor);
+        publishedCourse.setAsPublished();
+        courseRepository.save(publishedCourse);
+        Course buildingCourse = new Course("Building Course", "Description", instructor);
+        courseRepository.save(buildingCourse);
+        Course emptyCourse = new Course("Empty Course", "Description", instructor);
+        courseRepository.save(emptyCourse);
+
+        saveTask(publishedCourse, new Task(publishedCourse.getId(), "Task 1", 1, Type.OPEN_TEXT));
+        saveTask(publishedCourse, new Task(publishedCourse.getId(), "Task 2", 2, Type.SINGLE_CHOICE));
+        saveTask(buildingCourse, new Task(buildingCourse.getId(), "Task 3", 1, Type.OPEN_TEXT));
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // When & Then
+        mockMvc.perform(get("/instructor/{id}/courses", instructor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courses.length()").value(3))
+                .andExpect(jsonPath("$.courses[*].taskCount").value(contains(2, 1, 0)))
+                .andExpect(jsonPath("$.totalPublishedCourses").value(1));
+
+        // Instructor lookup plus the report query, whatever the number of courses or tasks
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        statistics.setStatisticsEnabled(false);
+    }
+
     @Test
     void shouldReturnNotFoundForNonExistentInstructor() throws Exception {
         // Given
@@ -243,4 +417,14 @@ class CourseControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    // Tasks inserted straight through the repository must keep the course counters in step, through the same
+    // update TaskService runs; the course is flushed first and reloaded after, so the managed copy sees the counters
+    private void saveTask(Course course, Task task) {
+        taskRepository.save(task);
+        entityManager.flush();
+        courseRepository.incrementTaskCounters(course.getId(), task.getType() == Type.OPEN_TEXT ? 1 : 0,
+                task.getType() == Type.SINGLE_CHOICE ? 1 : 0, task.getType() == Type.MULTIPLE_CHOICE ? 1 : 0);
+        entityManager.refresh(course);
+    }
+}
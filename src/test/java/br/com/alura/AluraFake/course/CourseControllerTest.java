@@ -13,6 +13,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import java.time.LocalDateTime;
@@ -23,6 +27,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,6 +41,9 @@ class CourseControllerTest {
     @MockBean
     private CourseService courseService;
 
+    @MockBean
+    private CourseContentService courseContentService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -125,7 +134,7 @@ class CourseControllerTest {
                         new User("Paulo", "paulo@email.com", Role.INSTRUCTOR)))
         );
 
-        when(courseService.getAllCourses()).thenReturn(courses);
+        when(courseService.getAllCourses(any(Pageable.class))).thenReturn(new SliceImpl<>(courses));
 
         // When & Then
         mockMvc.perform(get("/course/all")
@@ -142,7 +151,7 @@ class CourseControllerTest {
     @Test
     void shouldReturnEmptyListWhenNoCoursesExist() throws Exception {
         // Given
-        when(courseService.getAllCourses()).thenReturn(Collections.emptyList());
+        when(courseService.getAllCourses(any(Pageable.class))).thenReturn(new SliceImpl<>(Collections.emptyList()));
 
         // When & Then
         mockMvc.perform(get("/course/all"))
@@ -151,6 +160,36 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    void shouldLinkToTheNextPageOfCourses() throws Exception {
+        // Given
+        List<CourseListItemDTO> courses = List.of(
+                new CourseListItemDTO(1L, "Java", "Curso de java", Status.BUILDING),
+                new CourseListItemDTO(2L, "Spring", "Curso de spring", Status.BUILDING));
+        when(courseService.getAllCourses(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(courses, PageRequest.of(0, 2), true));
+
+        // When & Then
+        mockMvc.perform(get("/course/all?size=2&sort=title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().string("Link", "<http://localhost/course/all?size=2&sort=title&page=1>; rel=\"next\""));
+    }
+
+    @Test
+    void shouldListFirstFiftyCoursesByIdByDefault() throws Exception {
+        // Given
+        when(courseService.getAllCourses(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+
+        // When
+        mockMvc.perform(get("/course/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+
+        // Then
+        verify(courseService).getAllCourses(PageRequest.of(0, 50, Sort.by("id")));
+    }
+
     @Test
     void shouldPublishCourseSuccessfully() throws Exception {
         // Given
@@ -238,4 +277,58 @@ class CourseControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("User is not an instructor"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldServeCourseContentSnapshotAsJsonWithStrongEtag() throws Exception {
+        // Given
+        CourseContent content = CourseContent.of("{\"id\":1,\"title\":\"Java\",\"tasks\":[]}".getBytes());
+        when(courseContentService.getContent(1L)).thenReturn(content);
+
+        // When & Then
+        mockMvc.perform(get("/course/1/content"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"" + content.etag() + "\""))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes(content.json()));
+    }
+
+    @Test
+    void shouldServePreCompressedCourseContentWhenClientAcceptsGzip() throws Exception {
+        // Given
+        CourseContent content = CourseContent.of(("{\"tasks\":[" + "{\"statement\":\"What is Java?\"},".repeat(50) + "{}]}").getBytes());
+        when(courseContentService.getContent(1L)).thenReturn(content);
+
+        // When & Then
+        mockMvc.perform(get("/course/1/content").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"" + content.gzipEtag() + "\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().bytes(content.gzip()));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenCourseContentEtagMatches() throws Exception {
+        // Given
+        CourseContent content = CourseContent.of("{\"id\":1,\"tasks\":[]}".getBytes());
+        when(courseContentService.getContent(1L)).thenReturn(content);
+
+        // When & Then
+        mockMvc.perform(get("/course/1/content").header("If-None-Match", "\"" + content.etag() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenCourseContentIsNotPublished() throws Exception {
+        // Given
+        when(courseContentService.getContent(1L))
+                .thenThrow(new InvalidCourseStateException("Course must be PUBLISHED to have its content served"));
+
+        // When & Then
+        mockMvc.perform(get("/course/1/content"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Course must be PUBLISHED to have its content served"));
+    }
+}
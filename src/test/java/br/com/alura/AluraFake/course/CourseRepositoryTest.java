@@ -0,0 +1,64 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class CourseRepositoryTest {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User instructor;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findByIdForUpdate__should_leave_the_instructor_unloaded() {
+        Course found = courseRepository.findByIdForUpdate(course.getId()).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(found.getInstructor())).isFalse();
+        assertThat(found.getInstructor().getId()).isEqualTo(instructor.getId());
+    }
+
+    @Test
+    void findById__should_leave_the_instructor_unloaded() {
+        Course found = courseRepository.findById(course.getId()).orElseThrow();
+
+        assertThat(Hibernate.isInitialized(found.getInstructor())).isFalse();
+    }
+
+    @Test
+    void findByInstructor__should_fetch_the_instructor_with_the_courses() {
+        List<Course> courses = courseRepository.findByInstructor(instructor);
+
+        assertThat(courses).singleElement()
+                .satisfies(found -> assertThat(Hibernate.isInitialized(found.getInstructor())).isTrue());
+    }
+}
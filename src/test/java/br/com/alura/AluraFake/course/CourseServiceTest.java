@@ -4,9 +4,7 @@ import br.com.alura.AluraFake.exception.CourseNotFoundException;
 import br.com.alura.AluraFake.exception.InstructorNotFoundException;
 import br.com.alura.AluraFake.exception.InvalidCourseStateException;
 import br.com.alura.AluraFake.exception.UserNotInstructorException;
-import br.com.alura.AluraFake.task.Task;
-import br.com.alura.AluraFake.task.TaskRepository;
-import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.task.dto.response.CourseReportResponse;
 import br.com.alura.AluraFake.task.dto.response.InstructorCoursesReportResponse;
 import br.com.alura.AluraFake.task.dto.response.PublishCourseResponse;
 import br.com.alura.AluraFake.user.Role;
@@ -16,12 +14,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -36,7 +43,13 @@ class CourseServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private TaskRepository taskRepository;
+    private CourseContentService courseContentService;
+
+    @Mock
+    private CourseCache courseCache;
+
+    @Mock
+    private CourseWriteGuard courseWriteGuard;
 
     @InjectMocks
     private CourseService courseService;
@@ -48,6 +61,9 @@ class CourseServiceTest {
 
     @BeforeEach
     void setUp() {
+        // The guard only adds locking and a transaction around the work, so it runs the work as is
+        lenient().when(courseWriteGuard.write(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         instructor = new User("John Doe", "john@instructor.com", Role.INSTRUCTOR);
         student = new User("Jane Student", "jane@student.com", Role.STUDENT);
 
@@ -124,33 +140,59 @@ class CourseServiceTest {
         @Test
         void shouldReturnAllCourses() {
             // Given
-            Course course1 = new Course("Java Basics", "Learn Java", instructor);
-            Course course2 = new Course("Spring Boot", "Learn Spring", instructor);
+            List<CourseListItemDTO> courses = List.of(
+                    new CourseListItemDTO(1L, "Java Basics", "Learn Java", Status.BUILDING),
+                    new CourseListItemDTO(2L, "Spring Boot", "Learn Spring", Status.PUBLISHED));
 
-            when(courseRepository.findAll()).thenReturn(Arrays.asList(course1, course2));
+            when(courseRepository.findListItems(any(Pageable.class))).thenReturn(new SliceImpl<>(courses));
 
             // When
-            List<CourseListItemDTO> result = courseService.getAllCourses();
+            Slice<CourseListItemDTO> result = courseService.getAllCourses(PageRequest.of(0, 50, Sort.by("id")));
 
             // Then
             assertNotNull(result);
-            assertEquals(2, result.size());
-            assertEquals("Java Basics", result.get(0).getTitle());
-            assertEquals("Spring Boot", result.get(1).getTitle());
+            assertEquals(2, result.getNumberOfElements());
+            assertEquals("Java Basics", result.getContent().get(0).getTitle());
+            assertEquals("Spring Boot", result.getContent().get(1).getTitle());
         }
 
         @Test
         void shouldReturnEmptyListWhenNoCoursesExist() {
             // Given
-            when(courseRepository.findAll()).thenReturn(List.of());
+            when(courseRepository.findListItems(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
 
             // When
-            List<CourseListItemDTO> result = courseService.getAllCourses();
+            Slice<CourseListItemDTO> result = courseService.getAllCourses(PageRequest.of(0, 50));
 
             // Then
             assertNotNull(result);
             assertTrue(result.isEmpty());
         }
+
+        @Test
+        void shouldBreakTiesByIdSoPagesDoNotOverlap() {
+            // Given
+            when(courseRepository.findListItems(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+
+            // When
+            courseService.getAllCourses(PageRequest.of(2, 20, Sort.by(Sort.Direction.DESC, "title")));
+
+            // Then
+            ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+            verify(courseRepository).findListItems(pageable.capture());
+            assertEquals(2, pageable.getValue().getPageNumber());
+            assertEquals(20, pageable.getValue().getPageSize());
+            assertEquals(Sort.by(Sort.Order.desc("title"), Sort.Order.asc("id")), pageable.getValue().getSort());
+        }
+
+        @Test
+        void shouldRejectSortingByAnUnindexedProperty() {
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> courseService.getAllCourses(PageRequest.of(0, 50, Sort.by("description"))));
+            assertTrue(exception.getMessage().startsWith("Cannot sort by description"));
+            verify(courseRepository, never()).findListItems(any());
+        }
     }
 
     @Nested
@@ -161,14 +203,9 @@ class CourseServiceTest {
             // Given
             Long courseId = 1L;
 
-            List<Task> tasks = Arrays.asList(
-                    new Task(courseId, "Question 1", 1, Type.OPEN_TEXT),
-                    new Task(courseId, "Question 2", 2, Type.SINGLE_CHOICE),
-                    new Task(courseId, "Question 3", 3, Type.MULTIPLE_CHOICE)
-            );
+            withTaskCounts(validCourse, 1, 1, 1);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.findByCourseId(courseId)).thenReturn(tasks);
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
             when(courseRepository.save(any(Course.class))).thenAnswer(invocation -> {
                 Course course = invocation.getArgument(0);
                 course.setAsPublished();
@@ -185,13 +222,15 @@ class CourseServiceTest {
             assertNotNull(result.getPublishedAt());
 
             verify(courseRepository).save(validCourse);
+            verify(courseContentService).createSnapshot(validCourse);
+            verify(courseCache).evictOnCommit(courseId);
         }
 
         @Test
         void shouldThrowExceptionWhenCourseNotFound() {
             // Given
             Long invalidCourseId = 999L;
-            when(courseRepository.findById(invalidCourseId)).thenReturn(Optional.empty());
+            when(courseRepository.findByIdForUpdate(invalidCourseId)).thenReturn(Optional.empty());
 
             // When & Then
             CourseNotFoundException exception = assertThrows(
@@ -207,7 +246,7 @@ class CourseServiceTest {
             Long courseId = 1L;
             validCourse.setStatus(Status.PUBLISHED);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
 
             // When & Then
             InvalidCourseStateException exception = assertThrows(
@@ -223,13 +262,9 @@ class CourseServiceTest {
             Long courseId = 1L;
 
             // Missing MULTIPLE_CHOICE type
-            List<Task> incompleteTasks = Arrays.asList(
-                    new Task(courseId, "Question 1", 1, Type.OPEN_TEXT),
-                    new Task(courseId, "Question 2", 2, Type.SINGLE_CHOICE)
-            );
+            withTaskCounts(validCourse, 2, 1, 0);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.findByCourseId(courseId)).thenReturn(incompleteTasks);
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
 
             // When & Then
             InvalidCourseStateException exception = assertThrows(
@@ -237,29 +272,25 @@ class CourseServiceTest {
                     () -> courseService.publishCourse(courseId)
             );
             assertTrue(exception.getMessage().contains("Missing: [MULTIPLE_CHOICE]"));
+            verify(courseContentService, never()).createSnapshot(any(Course.class));
         }
 
         @Test
-        void shouldThrowExceptionWhenTaskSequenceIsInvalid() {
+        void shouldListEveryMissingTaskType() {
             // Given
             Long courseId = 1L;
+            withTaskCounts(validCourse, 0, 3, 0);
 
-            // Invalid sequence: 1, 3, 4 (missing 2)
-            List<Task> tasksWithGap = Arrays.asList(
-                    new Task(courseId, "Question 1", 1, Type.OPEN_TEXT),
-                    new Task(courseId, "Question 3", 3, Type.SINGLE_CHOICE),
-                    new Task(courseId, "Question 4", 4, Type.MULTIPLE_CHOICE)
-            );
-
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.findByCourseId(courseId)).thenReturn(tasksWithGap);
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
 
             // When & Then
             InvalidCourseStateException exception = assertThrows(
                     InvalidCourseStateException.class,
                     () -> courseService.publishCourse(courseId)
             );
-            assertEquals("Tasks must have continuous sequential order starting from 1", exception.getMessage());
+            assertEquals("Course must have at least one task of each type. Missing: [OPEN_TEXT, MULTIPLE_CHOICE]",
+                    exception.getMessage());
+            verify(courseRepository, never()).save(any(Course.class));
         }
 
         @Test
@@ -267,8 +298,7 @@ class CourseServiceTest {
             // Given
             Long courseId = 1L;
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.findByCourseId(courseId)).thenReturn(List.of());
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
 
             // When & Then
             InvalidCourseStateException exception = assertThrows(
@@ -317,7 +347,7 @@ class CourseServiceTest {
             Long instructorId = 1L;
 
             when(userRepository.findById(instructorId)).thenReturn(Optional.of(instructor));
-            when(courseRepository.findByInstructor(instructor)).thenReturn(List.of());
+            when(courseRepository.findReportByInstructorId(instructorId)).thenReturn(List.of());
 
             // When
             InstructorCoursesReportResponse result = courseService.getInstructorCoursesReport(instructorId);
@@ -333,27 +363,30 @@ class CourseServiceTest {
             // Given
             Long instructorId = 1L;
 
-            Course published1 = new Course("Course 1", "Desc", instructor);
-            published1.setAsPublished();
-
-            Course published2 = new Course("Course 2", "Desc", instructor);
-            published2.setAsPublished();
-
-            Course building = new Course("Course 3", "Desc", instructor);
-            building.setStatus(Status.BUILDING);
-
-            List<Course> courses = Arrays.asList(published1, published2, building);
+            List<CourseReportResponse> reports = Arrays.asList(
+                    new CourseReportResponse(1L, "Course 1", Status.PUBLISHED, LocalDateTime.now(), 4),
+                    new CourseReportResponse(2L, "Course 2", Status.PUBLISHED, LocalDateTime.now(), 3),
+                    new CourseReportResponse(3L, "Course 3", Status.BUILDING, null, 0)
+            );
 
             when(userRepository.findById(instructorId)).thenReturn(Optional.of(instructor));
-            when(courseRepository.findByInstructor(instructor)).thenReturn(courses);
-            when(taskRepository.countByCourseId(any())).thenReturn(0);
+            when(courseRepository.findReportByInstructorId(instructorId)).thenReturn(reports);
 
             // When
             InstructorCoursesReportResponse result = courseService.getInstructorCoursesReport(instructorId);
 
             // Then
             assertEquals(3, result.getCourses().size());
+            assertEquals(4, result.getCourses().get(0).getTaskCount());
             assertEquals(2, result.getTotalPublishedCourses()); // Only published courses
         }
     }
-}
\ No newline at end of file
+
+    // The counters TaskService keeps in step through CourseRepository.incrementTaskCounters
+    private static void withTaskCounts(Course course, int openText, int singleChoice, int multipleChoice) {
+        ReflectionTestUtils.setField(course, "openTextTaskCount", openText);
+        ReflectionTestUtils.setField(course, "singleChoiceTaskCount", singleChoice);
+        ReflectionTestUtils.setField(course, "multipleChoiceTaskCount", multipleChoice);
+        ReflectionTestUtils.setField(course, "taskCount", openText + singleChoice + multipleChoice);
+    }
+}
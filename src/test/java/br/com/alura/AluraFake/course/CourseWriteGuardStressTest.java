@@ -0,0 +1,151 @@
+package br.com.alura.AluraFake.course;
+
+import br.com.alura.AluraFake.task.Task;
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.task.TaskService;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskResponse;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Real threads against the real database, so nothing here runs inside a test transaction
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CourseWriteGuardStressTest {
+
+    private static final int THREADS = 8;
+    private static final int INSERTS_PER_THREAD = 25;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private CourseWriteGuard courseWriteGuard;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private ExecutorService executor;
+    private User instructor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        taskRepository.deleteAll();
+        courseRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void shouldKeepConcurrentInsertsIntoOneCourseConsistent() throws Exception {
+        // Given - every thread keeps inserting at the head of the same course, the most contended position
+        Course course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        taskService.createOpenTextTask(new OpenTextTaskRequest(course.getId(), "Seed", 1));
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+                    int order = 1 + (i % 2);
+                    taskService.createOpenTextTask(new OpenTextTaskRequest(course.getId(), "Thread " + thread + " task " + i, order));
+                }
+            }));
+        }
+
+        // When
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+
+        // Then - no insert was rejected, every position is distinct and the counters saw every insert
+        int expected = 1 + THREADS * INSERTS_PER_THREAD;
+        List<Task> tasks = taskRepository.findByCourseId(course.getId());
+        assertThat(tasks).hasSize(expected);
+        assertThat(tasks.stream().map(Task::getRank).distinct()).hasSize(expected);
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getTaskCount()).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldOnlyMakeWritersOfTheSameCourseWait() throws Exception {
+        // Given - two courses on different stripes, the first one held by a long running write
+        Course busyCourse = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        Course otherCourse = courseRepository.save(new Course("Spring", "Aprenda Spring", instructor));
+        assertThat(CourseWriteGuard.stripeOf(busyCourse.getId())).isNotEqualTo(CourseWriteGuard.stripeOf(otherCourse.getId()));
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> courseWriteGuard.write(busyCourse.getId(), () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        Future<TaskResponse> sameCourse = executor.submit(() ->
+                taskService.createOpenTextTask(new OpenTextTaskRequest(busyCourse.getId(), "Waits its turn", 1)));
+        Future<TaskResponse> otherCourseWrite = executor.submit(() ->
+                taskService.createOpenTextTask(new OpenTextTaskRequest(otherCourse.getId(), "Goes straight through", 1)));
+
+        // Then - the other course is written while the busy one is still held
+        assertThat(otherCourseWrite.get(10, TimeUnit.SECONDS).getOrder()).isEqualTo(1);
+        assertThatThrownBy(() -> sameCourse.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        assertThat(sameCourse.get(10, TimeUnit.SECONDS).getOrder()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectStaleCourseCopyAfterItsCountersChanged() {
+        // Given - a copy of the course read before a task was added
+        Course course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+        Course staleCopy = courseRepository.findById(course.getId()).orElseThrow();
+        taskService.createOpenTextTask(new OpenTextTaskRequest(course.getId(), "O que aprendemos hoje?", 1));
+
+        // When & Then - writing the stale copy back would reset the counters, so it is refused
+        staleCopy.setAsPublished();
+        assertThatThrownBy(() -> courseRepository.save(staleCopy)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getTaskCount()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.alura.AluraFake.course;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CourseWriteGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CourseWriteGuard courseWriteGuard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        courseWriteGuard = new CourseWriteGuard(mock(PlatformTransactionManager.class), meterRegistry, Duration.ZERO);
+    }
+
+    @Test
+    void shouldRetryOptimisticConflictsUntilTheWriteSucceeds() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = courseWriteGuard.write(1L, () -> {
+            if (attempts.incrementAndGet() < CourseWriteGuard.MAX_ATTEMPTS) {
+                throw new ObjectOptimisticLockingFailureException(Course.class, 1L);
+            }
+            return "written";
+        });
+
+        // Then
+        assertEquals("written", result);
+        assertEquals(CourseWriteGuard.MAX_ATTEMPTS, attempts.get());
+        assertEquals(2, meterRegistry.counter("course.write.retries", "exception", "ObjectOptimisticLockingFailureException").count());
+    }
+
+    @Test
+    void shouldGiveUpAfterTheLastAttempt() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(CannotAcquireLockException.class, () -> courseWriteGuard.write(1L, () -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("Lock wait timeout");
+        }));
+        assertEquals(CourseWriteGuard.MAX_ATTEMPTS, attempts.get());
+        assertEquals(1, meterRegistry.counter("course.write.retries.exhausted", "exception", "CannotAcquireLockException").count());
+    }
+
+    @Test
+    void shouldNotRetryValidationErrors() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> courseWriteGuard.write(1L, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("Course already has a task with this statement");
+        }));
+        assertEquals(1, attempts.get());
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+}
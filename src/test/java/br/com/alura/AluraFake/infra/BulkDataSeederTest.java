@@ -0,0 +1,192 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.task.Task;
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without a test transaction: the seeder commits a chunk of courses at a time
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BulkDataSeederTest {
+
+    // 3 instructors x 2 courses x 6 tasks, committed in chunks of about 4 tasks, every publishable course published
+    private static final BulkSeedProperties PROPERTIES =
+            new BulkSeedProperties(true, 7L, 3, 2, 6, 1, 1, 1, 2, 5, 1.0, 4);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    private BulkDataSeeder seeder;
+
+    @BeforeEach
+    void setUp() {
+        deleteAll();
+        seeder = new BulkDataSeeder(PROPERTIES, jdbcTemplate, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteAll();
+    }
+
+    @Test
+    void shouldWriteTheConfiguredNumberOfRows() {
+        // When
+        seeder.run();
+
+        // Then
+        assertThat(count("SELECT COUNT(*) FROM users WHERE email LIKE '%@seed.alura.com.br' AND role = 'INSTRUCTOR'")).isEqualTo(3);
+        assertThat(count("SELECT COUNT(*) FROM Course")).isEqualTo(6);
+        assertThat(count("SELECT COUNT(*) FROM task")).isEqualTo(36);
+    }
+
+    @Test
+    void shouldKeepCourseCountersInStepWithTheirTasks() {
+        // When
+        seeder.run();
+
+        // Then
+        assertThat(count("""
+                SELECT COUNT(*) FROM Course c WHERE
+                    c.taskCount <> (SELECT COUNT(*) FROM task t WHERE t.course_id = c.id)
+                    OR c.openTextTaskCount <> (SELECT COUNT(*) FROM task t WHERE t.course_id = c.id AND t.type = 'OPEN_TEXT')
+                    OR c.singleChoiceTaskCount <> (SELECT COUNT(*) FROM task t WHERE t.course_id = c.id AND t.type = 'SINGLE_CHOICE')
+                    OR c.multipleChoiceTaskCount <> (SELECT COUNT(*) FROM task t WHERE t.course_id = c.id AND t.type = 'MULTIPLE_CHOICE')
+                """)).isZero();
+    }
+
+    @Test
+    void shouldPublishOnlyCoursesWithEveryTaskType() {
+        // When
+        seeder.run();
+
+        // Then
+        assertThat(count("SELECT COUNT(*) FROM Course WHERE status = 'PUBLISHED'")).isPositive();
+        assertThat(count("""
+                SELECT COUNT(*) FROM Course WHERE status = 'PUBLISHED' AND (publishedAt IS NULL
+                    OR openTextTaskCount = 0 OR singleChoiceTaskCount = 0 OR multipleChoiceTaskCount = 0)
+                """)).isZero();
+    }
+
+    @Test
+    void shouldFollowTheOptionRulesOfEachTaskType() {
+        // When
+        seeder.run();
+
+        // Then
+        List<Map<String, Object>> tasks = jdbcTemplate.queryForList("""
+                SELECT t.type AS type, COUNT(o.id) AS options, COALESCE(SUM(CASE WHEN o.is_correct THEN 1 ELSE 0 END), 0) AS correct
+                FROM task t LEFT JOIN task_option o ON o.task_id = t.id GROUP BY t.id, t.type
+                """);
+        assertThat(tasks).hasSize(36).allSatisfy(task -> {
+            Type type = Type.valueOf((String) task.get("type"));
+            long options = ((Number) task.get("options")).longValue();
+            long correct = ((Number) task.get("correct")).longValue();
+            switch (type) {
+                case OPEN_TEXT -> assertThat(options).isZero();
+                case SINGLE_CHOICE -> {
+                    assertThat(options).isBetween(2L, 5L);
+                    assertThat(correct).isEqualTo(1);
+                }
+                case MULTIPLE_CHOICE -> {
+                    assertThat(options).isBetween(3L, 5L);
+                    assertThat(correct).isBetween(2L, options - 1);
+                }
+            }
+        });
+    }
+
+    @Test
+    void shouldWriteTheSameRowsForTheSameSeed() {
+        // Given
+        seeder.run();
+        List<Map<String, Object>> firstRun = seededContent();
+        deleteAll();
+
+        // When
+        seeder.run();
+
+        // Then
+        assertThat(seededContent()).isEqualTo(firstRun);
+    }
+
+    @Test
+    void shouldNotReuseIdsAlreadyHandedOutByHibernate() {
+        // Given - Hibernate holds a block of task ids in memory before the seeder runs
+        User instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        Long courseId = courseRepository.save(new Course("Java", "Aprenda Java", instructor)).getId();
+        taskRepository.save(new Task(courseId, "Questão 0", 1, Type.OPEN_TEXT));
+
+        // When - the seeder writes its rows, then JPA uses up its block and allocates the next one
+        seeder.run();
+        for (int order = 2; order <= 60; order++) {
+            taskRepository.save(new Task(courseId, "Questão " + order, order, Type.OPEN_TEXT));
+        }
+
+        // Then
+        assertThat(count("SELECT COUNT(*) FROM task WHERE course_id = " + courseId)).isEqualTo(60);
+        assertThat(count("SELECT COUNT(DISTINCT id) FROM task")).isEqualTo(96);
+    }
+
+    @Test
+    void shouldSkipWhenTheDatasetWasAlreadySeeded() {
+        // Given
+        seeder.run();
+
+        // When
+        seeder.run();
+
+        // Then
+        assertThat(count("SELECT COUNT(*) FROM users")).isEqualTo(3);
+        assertThat(count("SELECT COUNT(*) FROM Course")).isEqualTo(6);
+        assertThat(count("SELECT COUNT(*) FROM task")).isEqualTo(36);
+    }
+
+    private List<Map<String, Object>> seededContent() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.title, c.status, t.statement, t.type, t.task_rank, o.option, o.is_correct
+                FROM Course c JOIN task t ON t.course_id = c.id LEFT JOIN task_option o ON o.task_id = t.id
+                ORDER BY c.id, t.task_rank, o.id
+                """);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private void deleteAll() {
+        jdbcTemplate.update("DELETE FROM task_option");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM course_snapshot");
+        jdbcTemplate.update("DELETE FROM Course");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+}
@@ -0,0 +1,134 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Runs without a test transaction, so the statements of a request are the ones it really sends
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class RequestMetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM task_option");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM course_snapshot");
+        jdbcTemplate.update("DELETE FROM Course");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    void shouldTimeTaskCreationAndCountItsStatements() throws Exception {
+        // Given
+        User instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        Course course = courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+
+        // When
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"courseId": %d, "statement": "O que aprendemos hoje?", "order": 1}
+                                """.formatted(course.getId())))
+                .andExpect(status().isOk());
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.TIMER)
+                .tag("service", "task")
+                .tag("operation", "createOpenTextTask")
+                .tag("type", "OPEN_TEXT")
+                .tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+        DistributionSummary statements = meterRegistry.get(DatabaseRoundTripsFilter.SUMMARY)
+                .tag("method", "POST")
+                .tag("uri", "/task/new/opentext")
+                .tag("status", "200")
+                .summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isPositive();
+        assertThat(meterRegistry.get(DatabaseRoundTripsFilter.TIMER)
+                .tag("uri", "/task/new/opentext")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnStatementCountAndDatabaseTimeBeforeTheBody() throws Exception {
+        // Given
+        User instructor = userRepository.save(new User("Paulo", "paulo@alura.com.br", Role.INSTRUCTOR));
+        courseRepository.save(new Course("Java", "Aprenda Java", instructor));
+
+        // When / Then
+        mockMvc.perform(get("/course/all"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Java"))
+                .andExpect(header().string(DatabaseRoundTripsFilter.STATEMENTS_HEADER, not("0")))
+                .andExpect(header().exists(DatabaseRoundTripsFilter.TIME_HEADER));
+    }
+
+    @Test
+    void shouldTagRejectedRequestsAsValidationFailures() throws Exception {
+        // When
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"courseId": 999999, "statement": "O que aprendemos hoje?", "order": 1}
+                                """))
+                .andExpect(status().isBadRequest());
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.TIMER)
+                .tag("operation", "createOpenTextTask")
+                .tag("type", "OPEN_TEXT")
+                .tag("outcome", "validation_failure")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExposeHistogramsThroughPrometheus() throws Exception {
+        // Given
+        mockMvc.perform(get("/course/all")).andExpect(status().isOk());
+
+        // When / Then
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("service_operation_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_db_statements_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
+}
@@ -0,0 +1,79 @@
+package br.com.alura.AluraFake.infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReservedConnectionDataSourceTest {
+
+    private ReservedConnectionDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        // A main pool of one connection, which the first holder exhausts
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:reserved-connections;DB_CLOSE_DELAY=-1");
+        pool.setPoolName("main");
+        pool.setMaximumPoolSize(1);
+        pool.setConnectionTimeout(250);
+        dataSource = new ReservedConnectionDataSource(pool, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void shouldServeASecondConnectionOfTheSameThreadFromTheReserve() throws Exception {
+        try (Connection first = dataSource.getConnection();
+             Connection second = dataSource.getConnection()) {
+            // Then
+            assertThat(first.isValid(1)).isTrue();
+            assertThat(second.isValid(1)).isTrue();
+            assertThat(second).isNotEqualTo(first);
+        }
+    }
+
+    @Test
+    void shouldLeaveTheReserveToThreadsThatAlreadyHoldAConnection() throws Exception {
+        try (Connection held = dataSource.getConnection()) {
+            // When another thread asks while the main pool is exhausted
+            CompletableFuture<Connection> other = CompletableFuture.supplyAsync(this::connection);
+
+            // Then it waits for the main pool like before
+            assertThatThrownBy(() -> other.get(5, TimeUnit.SECONDS)).hasRootCauseInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    void shouldTakeFromTheMainPoolAgainOnceTheHeldConnectionIsClosed() throws Exception {
+        // Given
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+
+        // When
+        try (Connection next = dataSource.getConnection();
+             Connection nested = dataSource.getConnection()) {
+            // Then the reserve of one connection is still free for the nested one
+            assertThat(next.isValid(1)).isTrue();
+            assertThat(nested.isValid(1)).isTrue();
+        }
+    }
+
+    private Connection connection() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.alura.AluraFake.infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.TimeUnit;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ServiceMetricsAspectTest {
+
+    @Autowired
+    private CommittingService committingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldTimeTheCommitOfTheOperation() {
+        // When
+        committingService.commitSlowly();
+
+        // Then
+        Timer timer = timer("commitSlowly", "success");
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(CommittingService.COMMIT_MILLIS);
+    }
+
+    @Test
+    void shouldRecordAFailedCommitAsTheOperationsOutcome() {
+        // When
+        assertThatThrownBy(() -> committingService.failToCommit()).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(timer("failToCommit", "error").count()).isEqualTo(1);
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return meterRegistry.get(ServiceMetrics.TIMER)
+                .tag("service", "test")
+                .tag("operation", operation)
+                .tag("type", ServiceMetrics.NO_TYPE)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    @TestConfiguration
+    static class CommittingServiceConfiguration {
+
+        @Bean
+        CommittingService committingService() {
+            return new CommittingService();
+        }
+    }
+
+    // Its work happens while the transaction commits, after the method body has returned
+    static class CommittingService {
+
+        static final long COMMIT_MILLIS = 100;
+
+        @Transactional
+        @TimedOperation(service = "test")
+        public void commitSlowly() {
+            beforeCommit(() -> {
+                try {
+                    Thread.sleep(COMMIT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Transactional
+        @TimedOperation(service = "test")
+        public void failToCommit() {
+            beforeCommit(() -> {
+                throw new IllegalStateException("Commit failed");
+            });
+        }
+
+        private static void beforeCommit(Runnable work) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    work.run();
+                }
+            });
+        }
+    }
+}
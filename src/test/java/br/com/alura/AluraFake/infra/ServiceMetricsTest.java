@@ -0,0 +1,108 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.exception.CourseNotFoundException;
+import br.com.alura.AluraFake.task.Type;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ServiceMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ServiceMetrics serviceMetrics = new ServiceMetrics(meterRegistry);
+
+    @Test
+    void shouldTimeSuccessfulOperationsWithTheirType() {
+        // When
+        String result = serviceMetrics.timed("task", "createOpenTextTask", Type.OPEN_TEXT, () -> "ok");
+
+        // Then
+        assertThat(result).isEqualTo("ok");
+        assertThat(timer("createOpenTextTask", "OPEN_TEXT", "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTagOperationsWithoutATypeAsNone() {
+        // When
+        serviceMetrics.timed("course", "publishCourse", () -> {});
+
+        // Then
+        assertThat(timer("publishCourse", ServiceMetrics.NO_TYPE, "success").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordValidationFailuresAndRethrow() {
+        // When
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> serviceMetrics.timed("task", "createSingleChoiceTask", Type.SINGLE_CHOICE, () -> {
+                    throw new IllegalArgumentException("Opções duplicadas");
+                }));
+
+        // Then
+        assertThat(exception.getMessage()).isEqualTo("Opções duplicadas");
+        assertThat(timer("createSingleChoiceTask", "SINGLE_CHOICE", "validation_failure").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ServiceMetrics.TIMER).tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    void shouldMapExceptionsToTheOutcomeOfTheirHttpStatus() {
+        assertThat(ServiceMetrics.outcomeOf(new CourseNotFoundException(1L))).isEqualTo("not_found");
+        assertThat(ServiceMetrics.outcomeOf(new OptimisticLockingFailureException("stale"))).isEqualTo("conflict");
+        assertThat(ServiceMetrics.outcomeOf(new IllegalStateException("boom"))).isEqualTo("error");
+    }
+
+    @Test
+    void shouldCountCreatedTasksPerType() {
+        // When
+        serviceMetrics.countCreatedTasks(Type.MULTIPLE_CHOICE, 3);
+        serviceMetrics.countCreatedTasks(Type.MULTIPLE_CHOICE, 2);
+
+        // Then
+        assertThat(meterRegistry.get(ServiceMetrics.TASKS_CREATED).tag("type", "MULTIPLE_CHOICE").counter().count())
+                .isEqualTo(5);
+    }
+
+    @Test
+    void shouldEmitAFlightRecorderEventForEachOperation() throws Exception {
+        // Given
+        Path dump = Files.createTempFile("service-operations", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ServiceOperationEvent.class);
+            recording.start();
+
+            // When
+            serviceMetrics.timed("course", "publishCourse", () -> {});
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("br.com.alura.AluraFake.ServiceOperation"))
+                .toList();
+        Files.delete(dump);
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getString("service")).isEqualTo("course");
+            assertThat(event.getString("operation")).isEqualTo("publishCourse");
+            assertThat(event.getString("type")).isEqualTo(ServiceMetrics.NO_TYPE);
+            assertThat(event.getString("outcome")).isEqualTo("success");
+        });
+    }
+
+    private Timer timer(String operation, String type, String outcome) {
+        return meterRegistry.get(ServiceMetrics.TIMER)
+                .tag("operation", operation)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .timer();
+    }
+}
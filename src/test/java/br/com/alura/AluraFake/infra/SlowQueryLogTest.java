@@ -0,0 +1,165 @@
+package br.com.alura.AluraFake.infra;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    private final SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(100), false);
+
+    // Read straight from the logger: once a Spring context configured logback, its console output is asynchronous
+    private final Logger logger = (Logger) LoggerFactory.getLogger(SlowQueryLog.class);
+    private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        logged.start();
+        logger.addAppender(logged);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(logged);
+    }
+
+    @Test
+    void shouldLogQueriesSlowerThanTheThresholdWithTheirParameterTypes() throws Exception {
+        // Given
+        QueryInfo query = query("SELECT * FROM users WHERE id = ? AND email = ?",
+                List.of(setLong(1, 7L), setString(2, "paulo@alura.com.br")));
+
+        // When
+        slowQueryLog.afterQuery(execution(150, false), List.of(query));
+
+        // Then - the bound values never reach the log
+        assertThat(logged.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("Slow query took 150 ms: SELECT * FROM users WHERE id = ? AND email = ? params (Long,String)");
+    }
+
+    @Test
+    void shouldLogTheBoundValuesOnlyWhenAskedTo() throws Exception {
+        // Given
+        SlowQueryLog withValues = new SlowQueryLog(Duration.ofMillis(100), true);
+        QueryInfo query = query("SELECT * FROM task WHERE course_id = ? AND statement = ?",
+                List.of(setLong(1, 7L), setString(2, "O que é Java?")));
+
+        // When
+        withValues.afterQuery(execution(150, false), List.of(query));
+
+        // Then
+        assertThat(logged.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .isEqualTo("Slow query took 150 ms: SELECT * FROM task WHERE course_id = ? AND statement = ? " +
+                        "params (7,O que é Java?)");
+    }
+
+    @Test
+    void shouldNotLogQueriesFasterThanTheThreshold() throws Exception {
+        // Given
+        QueryInfo query = query("SELECT * FROM Course WHERE id = ?", List.of(setLong(1, 1L)));
+
+        // When
+        slowQueryLog.afterQuery(execution(99, false), List.of(query));
+
+        // Then
+        assertThat(logged.list).isEmpty();
+    }
+
+    @Test
+    void shouldShowOnlyTheFirstParameterSetsOfABatch() throws Exception {
+        // Given
+        QueryInfo query = new QueryInfo("INSERT INTO task_option (id, task_id, option, is_correct) VALUES (?, ?, ?, ?)");
+        List<List<ParameterSetOperation>> rows = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            rows.add(List.of(setLong(1, id), setLong(2, 10L), setString(3, "Java"), setNull(4)));
+        }
+        query.setParametersList(rows);
+
+        // When
+        String description = SlowQueryLog.describe(List.of(query), true);
+
+        // Then
+        assertThat(description).endsWith("params (1,10,Java,NULL), (2,10,Java,NULL), (3,10,Java,NULL), " +
+                "(4,10,Java,NULL), (5,10,Java,NULL) and 3 more");
+    }
+
+    @Test
+    void shouldCountTheParameterSetsOfABatchWithoutItsValues() throws Exception {
+        // Given
+        QueryInfo query = new QueryInfo("INSERT INTO users (createdAt, name, email, role, password) VALUES (?, ?, ?, ?, ?)");
+        List<List<ParameterSetOperation>> rows = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            rows.add(List.of(setObject(1, LocalDateTime.of(2026, 1, 1, 0, 0)), setString(2, "Ana"),
+                    setString(3, "ana" + id + "@alura.com.br"), setString(4, "STUDENT"), setNull(5)));
+        }
+        query.setParametersList(rows);
+
+        // When
+        String description = SlowQueryLog.describe(List.of(query), false);
+
+        // Then
+        assertThat(description).endsWith("params (LocalDateTime,String,String,String,NULL) x 3")
+                .doesNotContain("alura.com.br");
+    }
+
+    @Test
+    void shouldOrderParametersByTheirIndex() throws Exception {
+        // Given
+        QueryInfo query = query("UPDATE Course SET title = ? WHERE id = ?", List.of(setLong(2, 3L), setString(1, "Java")));
+
+        // When
+        String description = SlowQueryLog.describe(List.of(query), true);
+
+        // Then
+        assertThat(description).isEqualTo("UPDATE Course SET title = ? WHERE id = ? params (Java,3)");
+    }
+
+    private QueryInfo query(String sql, List<ParameterSetOperation> parameters) {
+        QueryInfo query = new QueryInfo(sql);
+        query.setParametersList(new ArrayList<>(List.of(parameters)));
+        return query;
+    }
+
+    private ExecutionInfo execution(long elapsedMillis, boolean batch) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+        execution.setBatch(batch);
+        return execution;
+    }
+
+    private ParameterSetOperation setLong(int index, long value) throws NoSuchMethodException {
+        return new ParameterSetOperation(PreparedStatement.class.getMethod("setLong", int.class, long.class),
+                new Object[] {index, value});
+    }
+
+    private ParameterSetOperation setString(int index, String value) throws NoSuchMethodException {
+        return new ParameterSetOperation(PreparedStatement.class.getMethod("setString", int.class, String.class),
+                new Object[] {index, value});
+    }
+
+    private ParameterSetOperation setObject(int index, Object value) throws NoSuchMethodException {
+        return new ParameterSetOperation(PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+                new Object[] {index, value});
+    }
+
+    private ParameterSetOperation setNull(int index) throws NoSuchMethodException {
+        return new ParameterSetOperation(PreparedStatement.class.getMethod("setNull", int.class, int.class),
+                new Object[] {index, Types.BOOLEAN});
+    }
+}
@@ -0,0 +1,30 @@
+package br.com.alura.AluraFake.infra;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Fails the test when a request it sends through MockMvc runs more SQL statements than max. With an endpoint
+// ("GET /instructor/{id}/courses", the method and the mapped uri template) only that endpoint is held to the budget,
+// and the test must call it; without one every request is. The MockMvc must run DatabaseRoundTripsFilter and
+// StatementBudgetExtension.recordStatements(), see CourseControllerIntegrationTest.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(StatementBudget.List.class)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface StatementBudget {
+
+    int max();
+
+    String endpoint() default "";
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @ExtendWith(StatementBudgetExtension.class)
+    @interface List {
+        StatementBudget[] value();
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.alura.AluraFake.infra;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.ResultHandler;
+import org.springframework.web.servlet.HandlerMapping;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Checks the budgets of @StatementBudget against the statement count DatabaseRoundTripsFilter reported for each request
+// the test sent. MockMvc runs requests on the test thread, so they are collected in a thread local while a budgeted
+// test runs.
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ThreadLocal<List<RecordedRequest>> RECORDED = new ThreadLocal<>();
+
+    // Add with alwaysDo when building the MockMvc; does nothing for tests without a budget
+    public static ResultHandler recordStatements() {
+        return result -> {
+            List<RecordedRequest> recorded = RECORDED.get();
+            if (recorded == null) {
+                return;
+            }
+            String statements = result.getResponse().getHeader(DatabaseRoundTripsFilter.STATEMENTS_HEADER);
+            if (statements == null) {
+                throw new AssertionError("No " + DatabaseRoundTripsFilter.STATEMENTS_HEADER + " header: the MockMvc must "
+                        + "run DatabaseRoundTripsFilter with db.round-trips.headers=true");
+            }
+            recorded.add(new RecordedRequest(endpoint(result.getRequest()), Integer.parseInt(statements)));
+        };
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        RECORDED.set(new ArrayList<>());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        List<RecordedRequest> recorded = RECORDED.get();
+        RECORDED.remove();
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        List<StatementBudget> budgets = AnnotationSupport.findRepeatableAnnotations(
+                context.getRequiredTestMethod(), StatementBudget.class);
+        for (StatementBudget budget : budgets) {
+            List<RecordedRequest> held = recorded.stream()
+                    .filter(request -> budget.endpoint().isEmpty() || request.endpoint().equals(budget.endpoint()))
+                    .toList();
+            if (held.isEmpty()) {
+                throw new AssertionError("No request to " + (budget.endpoint().isEmpty() ? "any endpoint" : budget.endpoint())
+                        + " was sent; requests: " + recorded);
+            }
+            List<RecordedRequest> overBudget = held.stream()
+                    .filter(request -> request.statements() > budget.max())
+                    .toList();
+            if (!overBudget.isEmpty()) {
+                throw new AssertionError("Expected at most " + budget.max() + " SQL statements per request, but "
+                        + overBudget.stream().map(RecordedRequest::toString).collect(Collectors.joining(", ")));
+            }
+        }
+    }
+
+    private static String endpoint(MockHttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+    }
+
+    private record RecordedRequest(String endpoint, int statements) {
+
+        @Override
+        public String toString() {
+            return endpoint + " ran " + statements;
+        }
+    }
+}
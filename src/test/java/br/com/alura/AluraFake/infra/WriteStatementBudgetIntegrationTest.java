@@ -0,0 +1,157 @@
+package br.com.alura.AluraFake.infra;
+
+import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.task.TaskRepository;
+import br.com.alura.AluraFake.task.Type;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskItemRequest;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskRequest;
+import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.user.Role;
+import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Statement budgets of the write endpoints. Runs without a test transaction, so each request commits its own and the
+// batched inserts and counter updates are flushed, and counted, inside the request instead of at the test's rollback
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureWebMvc
+class WriteStatementBudgetIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private DatabaseRoundTripsFilter databaseRoundTripsFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mockMvc;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(databaseRoundTripsFilter)
+                .alwaysDo(StatementBudgetExtension.recordStatements())
+                .build();
+
+        User instructor = userRepository.save(new User("Tiago Pinhal", "tiago@email.com", Role.INSTRUCTOR));
+        course = courseRepository.save(new Course("Java Basics", "Learn Java fundamentals", instructor));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM task_option");
+        jdbcTemplate.update("DELETE FROM task");
+        jdbcTemplate.update("DELETE FROM course_snapshot");
+        jdbcTemplate.update("DELETE FROM Course");
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    @Test
+    @StatementBudget(max = 6, endpoint = "POST /course/{id}/tasks/bulk")
+    void shouldCreateTasksInBulkWithBatchedInserts() throws Exception {
+        // Given
+        List<BulkTaskItemRequest> items = new ArrayList<>();
+        for (int i = 1; i <= 30; i++) {
+            items.add(new BulkTaskItemRequest(Type.MULTIPLE_CHOICE, "Bulk question " + i, i, List.of(
+                    new TaskOptionRequest("Java", true),
+                    new TaskOptionRequest("Spring", true),
+                    new TaskOptionRequest("Ruby", false)
+            )));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        // When & Then - course, duplicate statements and neighbour ranks are read and the counters updated, then the
+        // tasks and the options go in one JDBC batch each
+        try {
+            mockMvc.perform(post("/course/{id}/tasks/bulk", course.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new BulkTaskRequest(items))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(30))
+                    .andExpect(jsonPath("$[29].order").value(30));
+
+            // 30 tasks and 90 options end up in a handful of JDBC batches, all committed by the request
+            assertThat(statistics.getPrepareStatementCount()).isLessThan(15);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        assertThat(taskRepository.countByCourseId(course.getId())).isEqualTo(30);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM task_option", Long.class)).isEqualTo(90);
+        assertThat(courseRepository.findById(course.getId()).orElseThrow().getTaskCount(Type.MULTIPLE_CHOICE)).isEqualTo(30);
+    }
+
+    @Test
+    @StatementBudget(max = 4, endpoint = "POST /course/{id}/publish")
+    void shouldPublishCourseWithinItsBudget() throws Exception {
+        // Given - one task of each type, committed through the API so the course counters are in step
+        List<BulkTaskItemRequest> items = List.of(
+                new BulkTaskItemRequest(Type.OPEN_TEXT, "What is Java?", 1, null),
+                new BulkTaskItemRequest(Type.SINGLE_CHOICE, "Choose the correct answer", 2, List.of(
+                        new TaskOptionRequest("Java", true),
+                        new TaskOptionRequest("Python", false))),
+                new BulkTaskItemRequest(Type.MULTIPLE_CHOICE, "Select all that apply", 3, List.of(
+                        new TaskOptionRequest("Java", true),
+                        new TaskOptionRequest("Spring", true),
+                        new TaskOptionRequest("Ruby", false))));
+        mockMvc.perform(post("/course/{id}/tasks/bulk", course.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkTaskRequest(items))))
+                .andExpect(status().isOk());
+
+        // When & Then - course and tasks are read, the snapshot inserted and the course updated
+        mockMvc.perform(post("/course/{id}/publish", course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PUBLISHED"));
+
+        Course publishedCourse = courseRepository.findById(course.getId()).orElseThrow();
+        assertThat(publishedCourse.getStatus()).isEqualTo(Status.PUBLISHED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course_snapshot WHERE course_id = ?", Long.class,
+                course.getId())).isEqualTo(1);
+    }
+}
@@ -2,23 +2,34 @@ package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.infra.DatabaseRoundTripsFilter;
+import br.com.alura.AluraFake.infra.StatementBudget;
+import br.com.alura.AluraFake.infra.StatementBudgetExtension;
 import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
 import br.com.alura.AluraFake.user.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
+import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -31,6 +42,9 @@ class TaskControllerIntegrationTest {
     @Autowired
     private WebApplicationContext webApplicationContext;
 
+    @Autowired
+    private DatabaseRoundTripsFilter databaseRoundTripsFilter;
+
     private MockMvc mockMvc;
 
     @Autowired
@@ -45,12 +59,21 @@ class TaskControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private Course testCourse;
 
     @BeforeEach
     void setUp() {
         // MockMvc Configuration
-        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(databaseRoundTripsFilter)
+                .alwaysDo(StatementBudgetExtension.recordStatements())
+                .build();
 
         // Current data stored in the database
         User instructor = new User("Tiago Pinhal", "tiago@email.com", Role.INSTRUCTOR);
@@ -81,6 +104,10 @@ class TaskControllerIntegrationTest {
         var tasksInDb = taskRepository.findByCourseId(testCourse.getId());
         assertThat(tasksInDb).hasSize(1);
         assertThat(tasksInDb.getFirst().getStatement()).isEqualTo("What is polymorphism?");
+
+        entityManager.refresh(testCourse);
+        assertThat(testCourse.getTaskCount()).isEqualTo(1);
+        assertThat(testCourse.getTaskCount(Type.OPEN_TEXT)).isEqualTo(1);
     }
 
     @Test
@@ -101,4 +128,142 @@ class TaskControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(duplicateRequest)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldEnforceStatementUniquenessThroughTheHashConstraint() {
+        // Given
+        taskRepository.saveAndFlush(new Task(testCourse.getId(), "Duplicate statement", 1, Type.OPEN_TEXT));
+
+        // When & Then - the same trimmed text produces the same hash, which the unique key rejects
+        Task duplicate = new Task(testCourse.getId(), "  Duplicate statement ", 2, Type.OPEN_TEXT);
+        assertThat(duplicate.getStatementHash()).hasSize(64);
+        assertThatThrownBy(() -> taskRepository.saveAndFlush(duplicate))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @StatementBudget(max = 2, endpoint = "POST /task/new/opentext")
+    void shouldValidateAndPlaceNewTaskWithASingleQuery() throws Exception {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            taskRepository.save(new Task(testCourse.getId(), "Question " + i, i, Type.OPEN_TEXT));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        OpenTextTaskRequest request = new OpenTextTaskRequest(testCourse.getId(), "Inserted question", 2);
+
+        // When
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        // Then - course status, duplicate check, sequence size and neighbour ranks come from one query
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void shouldInsertTaskInTheMiddleWithoutUpdatingOtherRows() throws Exception {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            taskRepository.save(new Task(testCourse.getId(), "Question " + i, i, Type.OPEN_TEXT));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        OpenTextTaskRequest request = new OpenTextTaskRequest(testCourse.getId(), "Inserted question", 2);
+
+        // When
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.order").value(2));
+        entityManager.flush();
+
+        // Then - only the new row is written, and the public order is derived densely on read
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        statistics.setStatisticsEnabled(false);
+
+        mockMvc.perform(get("/tasks"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].statement").value("Inserted question"))
+                .andExpect(jsonPath("$[*].order").value(contains(1, 2, 3, 4)));
+    }
+
+    @Test
+    @StatementBudget(max = 1, endpoint = "GET /tasks")
+    void shouldListAllTasksWithOptionsUsingASingleStatement() throws Exception {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            Task task = new Task(testCourse.getId(), "Choice question " + i, i, Type.SINGLE_CHOICE);
+            task.setOptions(List.of(
+                    new TaskOption("Java", true, task),
+                    new TaskOption("Python", false, task)
+            ));
+            taskRepository.save(task);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        // When & Then
+        try {
+            mockMvc.perform(get("/tasks"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(5))
+                    .andExpect(jsonPath("$[4].options.length()").value(2));
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Test
+    @StatementBudget(max = 2, endpoint = "GET /tasks")
+    void shouldPaginateTasksWithKeysetCursor() throws Exception {
+        // Given
+        for (int i = 1; i <= 3; i++) {
+            taskRepository.save(new Task(testCourse.getId(), "Paged question " + i, i, Type.OPEN_TEXT));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        String firstPage = mockMvc.perform(get("/tasks")
+                        .param("courseId", testCourse.getId().toString())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].statement").value("Paged question 1"))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        // Then
+        mockMvc.perform(get("/tasks")
+                        .param("courseId", testCourse.getId().toString())
+                        .param("limit", "2")
+                        .param("after", nextCursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].statement").value("Paged question 3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+}
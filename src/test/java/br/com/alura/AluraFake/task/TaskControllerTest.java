@@ -1,9 +1,12 @@
 package br.com.alura.AluraFake.task;
 
+import br.com.alura.AluraFake.task.dto.request.BulkTaskItemRequest;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.MultipleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.SingleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskPageResponse;
 import br.com.alura.AluraFake.task.dto.response.TaskResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -11,12 +14,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -51,6 +60,59 @@ class TaskControllerTest {
                 .andExpect(jsonPath("$[0].type").value("OPEN_TEXT"));
     }
 
+    @Test
+    void shouldReturnTasksPageWithNextCursor() throws Exception {
+        // Given
+        TaskPageResponse page = new TaskPageResponse(
+                List.of(new TaskResponse(1L, 1L, "Question 1", 1, Type.OPEN_TEXT, LocalDateTime.now(), null)),
+                "next-token"
+        );
+        when(taskService.findTasksPage(eq(1L), isNull(), eq(1))).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/tasks").param("limit", "1").param("courseId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].statement").value("Question 1"))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void shouldReturnBadRequestWhenCursorIsInvalid() throws Exception {
+        // Given
+        when(taskService.findTasksPage(isNull(), eq("garbage"), eq(10)))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        // When & Then
+        mockMvc.perform(get("/tasks").param("limit", "10").param("after", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    void shouldStreamTasksAsNdjson() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<TaskResponse> consumer = invocation.getArgument(1);
+            consumer.accept(new TaskResponse(1L, 1L, "Question 1", 1, Type.OPEN_TEXT, null, null));
+            consumer.accept(new TaskResponse(2L, 1L, "Question 2", 2, Type.OPEN_TEXT, null, null));
+            return null;
+        }).when(taskService).streamTasks(isNull(), any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/tasks").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":1,\"courseId\":1,\"statement\":\"Question 1\",\"order\":1,\"type\":\"OPEN_TEXT\",\"createdAt\":null,\"options\":null}\n" +
+                        "{\"id\":2,\"courseId\":1,\"statement\":\"Question 2\",\"order\":2,\"type\":\"OPEN_TEXT\",\"createdAt\":null,\"options\":null}\n"));
+    }
+
     @Test
     void shouldReturnTaskById() throws Exception {
         // Given
@@ -103,6 +165,21 @@ class TaskControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void shouldReturnConflictWhenConcurrentWritesKeepColliding() throws Exception {
+        // Given
+        OpenTextTaskRequest request = new OpenTextTaskRequest(1L, "What did we learn today?", 1);
+        when(taskService.createOpenTextTask(any(OpenTextTaskRequest.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Task.class, 1L));
+
+        // When & Then
+        mockMvc.perform(post("/task/new/opentext")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Course was modified concurrently, please try again"));
+    }
+
     @Test
     void shouldCreateSingleChoiceTask() throws Exception {
         // Given
@@ -199,4 +276,53 @@ class TaskControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldCreateTasksInBulk() throws Exception {
+        // Given
+        BulkTaskRequest request = new BulkTaskRequest(List.of(
+                new BulkTaskItemRequest(Type.OPEN_TEXT, "What did we learn today?", 1, null),
+                new BulkTaskItemRequest(Type.SINGLE_CHOICE, "What language are we learning?", 2, List.of(
+                        new TaskOptionRequest("Java", true),
+                        new TaskOptionRequest("Python", false)
+                ))
+        ));
+        List<TaskResponse> response = List.of(
+                new TaskResponse(1L, 1L, "What did we learn today?", 1, Type.OPEN_TEXT, LocalDateTime.now(), null),
+                new TaskResponse(2L, 1L, "What language are we learning?", 2, Type.SINGLE_CHOICE, LocalDateTime.now(), Collections.emptyList())
+        );
+
+        when(taskService.createTasksInBulk(eq(1L), any())).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/course/{id}/tasks/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].type").value("SINGLE_CHOICE"));
+    }
+
+    @Test
+    void shouldValidateBulkTaskItems() throws Exception {
+        // Given - Item without type and with a short statement
+        BulkTaskRequest request = new BulkTaskRequest(List.of(
+                new BulkTaskItemRequest(null, "Hi", 1, null)
+        ));
+
+        // When & Then
+        mockMvc.perform(post("/course/{id}/tasks/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectEmptyBulkRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/course/{id}/tasks/bulk", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkTaskRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,27 +1,45 @@
 package br.com.alura.AluraFake.task;
 
 import br.com.alura.AluraFake.course.Course;
+import br.com.alura.AluraFake.course.CourseCache;
 import br.com.alura.AluraFake.course.CourseRepository;
+import br.com.alura.AluraFake.course.CourseWriteGuard;
 import br.com.alura.AluraFake.course.Status;
+import br.com.alura.AluraFake.infra.ServiceMetrics;
+import br.com.alura.AluraFake.task.dto.request.BulkTaskItemRequest;
 import br.com.alura.AluraFake.task.dto.request.MultipleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.OpenTextTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.SingleChoiceTaskRequest;
 import br.com.alura.AluraFake.task.dto.request.TaskOptionRequest;
+import br.com.alura.AluraFake.task.dto.response.TaskPageResponse;
 import br.com.alura.AluraFake.task.dto.response.TaskResponse;
 import br.com.alura.AluraFake.user.Role;
 import br.com.alura.AluraFake.user.User;
+import br.com.alura.AluraFake.util.StatementHash;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.Set;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +51,23 @@ class TaskServiceTest {
     @Mock
     private CourseRepository courseRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CourseCache courseCache;
+
+    @Mock
+    private CourseWriteGuard courseWriteGuard;
+
+    @Captor
+    private ArgumentCaptor<List<Task>> savedTasks;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ServiceMetrics serviceMetrics = new ServiceMetrics(meterRegistry);
+
     @InjectMocks
     private TaskService taskService;
 
@@ -40,6 +75,9 @@ class TaskServiceTest {
 
     @BeforeEach
     void setUp() {
+        // The guard only adds locking and a transaction around the work, so it runs the work as is
+        lenient().when(courseWriteGuard.write(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         User instructor = new User("Tiago Pinhal", "tiago@email.com", Role.INSTRUCTOR);
         validCourse = new Course("Java Basics", "Learn Java fundamentals", instructor);
     }
@@ -53,10 +91,8 @@ class TaskServiceTest {
             Long courseId = 1L;
             OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 1);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What did you learn?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
-            when(taskRepository.findByCourseIdAndOrder(courseId, 1)).thenReturn(Optional.empty());
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
             when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> {
                 Task task = invocation.getArgument(0);
                 task.setId(1L);
@@ -75,6 +111,8 @@ class TaskServiceTest {
             assertNull(response.getOptions());
 
             verify(taskRepository).save(any(Task.class));
+            verify(courseRepository).incrementTaskCounters(courseId, 1, 0, 0);
+            verify(courseCache).evictOnCommit(courseId);
         }
 
         @Test
@@ -82,7 +120,8 @@ class TaskServiceTest {
             // Given
             Long invalidCourseId = 999L;
             OpenTextTaskRequest request = new OpenTextTaskRequest(invalidCourseId, "What did you learn?", 1);
-            when(courseRepository.findById(invalidCourseId)).thenReturn(Optional.empty());
+            when(taskRepository.findWriteContext(eq(invalidCourseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.empty());
 
             // When & Then
             IllegalArgumentException exception = assertThrows(
@@ -99,7 +138,8 @@ class TaskServiceTest {
             validCourse.setStatus(Status.PUBLISHED);
             OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 1);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.PUBLISHED, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(
@@ -115,8 +155,8 @@ class TaskServiceTest {
             Long courseId = 1L;
             OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 1);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What did you learn?")).thenReturn(true);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 1L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -130,9 +170,8 @@ class TaskServiceTest {
             Long courseId = 1L;
             OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 3);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What did you learn?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(1);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 1L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(
@@ -143,23 +182,53 @@ class TaskServiceTest {
         }
 
         @Test
-        void shouldIncrementOrderWhenPositionIsOccupied() {
+        void shouldPlaceTaskBetweenNeighbourRanksWithoutShiftingOthers() {
             // Given
             Long courseId = 1L;
             OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 2);
-            Task existingTask = new Task(courseId, "Existing task", 2, Type.OPEN_TEXT);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What did you learn?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(3);
-            when(taskRepository.findByCourseIdAndOrder(courseId, 2)).thenReturn(Optional.of(existingTask));
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 3L, 0L, 1024L, 2048L)));
+            when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            TaskResponse response = taskService.createOpenTextTask(request);
+
+            // Then
+            assertEquals(2, response.getOrder());
+            ArgumentCaptor<Task> saved = ArgumentCaptor.forClass(Task.class);
+            verify(taskRepository).save(saved.capture());
+            assertEquals(1536L, saved.getValue().getRank());
+            verify(taskRepository, never()).negateRanks(any());
+        }
+
+        @Test
+        void shouldRebalanceCourseWhenNeighbourRanksAreAdjacent() {
+            // Given
+            Long courseId = 1L;
+            OpenTextTaskRequest request = new OpenTextTaskRequest(courseId, "What did you learn?", 2);
+            Task first = new Task(courseId, "First", 1, Type.OPEN_TEXT);
+            first.setId(10L);
+            Task second = new Task(courseId, "Second", 2, Type.OPEN_TEXT);
+            second.setId(11L);
+
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What did you learn?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 2L, 0L, 1024L, 1025L)));
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of(
+                    new TaskPosition(10L, 1024L), new TaskPosition(11L, 1025L)));
+            when(taskRepository.findAllById(Set.of(10L, 11L))).thenReturn(List.of(first, second));
             when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
             // When
             taskService.createOpenTextTask(request);
 
             // Then
-            verify(taskRepository).incrementOrderFromPosition(courseId, 2);
+            verify(taskRepository).negateRanks(courseId);
+            ArgumentCaptor<Task> saved = ArgumentCaptor.forClass(Task.class);
+            verify(taskRepository).save(saved.capture());
+            assertEquals(1024L, first.getRank());
+            assertEquals(2048L, saved.getValue().getRank());
+            assertEquals(3072L, second.getRank());
         }
     }
 
@@ -177,10 +246,8 @@ class TaskServiceTest {
             );
             SingleChoiceTaskRequest request = new SingleChoiceTaskRequest(courseId, "What is this language?", 1, options);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What is this language?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
-            when(taskRepository.findByCourseIdAndOrder(courseId, 1)).thenReturn(Optional.empty());
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What is this language?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
             when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> {
                 Task task = invocation.getArgument(0);
                 task.setId(1L);
@@ -212,9 +279,8 @@ class TaskServiceTest {
             );
             SingleChoiceTaskRequest request = new SingleChoiceTaskRequest(courseId, "What is this language?", 1, options);
 
-            when(courseRepository.findById(1L)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What is this language?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What is this language?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -233,9 +299,8 @@ class TaskServiceTest {
             );
             SingleChoiceTaskRequest request = new SingleChoiceTaskRequest(courseId, "What is this language?", 1, options);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What is this language?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What is this language?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -254,9 +319,8 @@ class TaskServiceTest {
             );
             SingleChoiceTaskRequest request = new SingleChoiceTaskRequest(courseId, "What is this language?", 1, options);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What is this language?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What is this language?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -275,9 +339,8 @@ class TaskServiceTest {
             );
             SingleChoiceTaskRequest request = new SingleChoiceTaskRequest(courseId, "What is this language?", 1, options);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What is this language?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What is this language?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -299,10 +362,8 @@ class TaskServiceTest {
             );
             MultipleChoiceTaskRequest request = new MultipleChoiceTaskRequest(courseId, "What technologies?", 1, optionsCorrects);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What technologies?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
-            when(taskRepository.findByCourseIdAndOrder(courseId, 1)).thenReturn(Optional.empty());
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What technologies?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
             when(taskRepository.save(any(Task.class))).thenAnswer(invocation -> {
                 Task task = invocation.getArgument(0);
                 task.setId(1L);
@@ -333,9 +394,8 @@ class TaskServiceTest {
             );
             MultipleChoiceTaskRequest request = new MultipleChoiceTaskRequest(courseId, "What technologies?", 1, optionsWithOneCorrect);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What technologies?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What technologies?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -354,9 +414,8 @@ class TaskServiceTest {
             );
             MultipleChoiceTaskRequest request = new MultipleChoiceTaskRequest(courseId, "What technologies?", 1, options);
 
-            when(courseRepository.findById(courseId)).thenReturn(Optional.of(validCourse));
-            when(taskRepository.existsByCourseIdAndStatement(courseId, "What technologies?")).thenReturn(false);
-            when(taskRepository.findMaxOrderByCourseId(courseId)).thenReturn(0);
+            when(taskRepository.findWriteContext(eq(courseId), eq(StatementHash.of("What technologies?")), anyInt(), anyInt()))
+                    .thenReturn(Optional.of(new TaskWriteContext(Status.BUILDING, 0L, 0L, null, null)));
 
             // When & Then
             IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
@@ -407,7 +466,7 @@ class TaskServiceTest {
             Task task2 = new Task(1L, "Choose language", 2, Type.SINGLE_CHOICE);
             task2.setId(2L);
 
-            when(taskRepository.findAll()).thenReturn(Arrays.asList(task1, task2));
+            when(taskRepository.findAllWithOptions()).thenReturn(Arrays.asList(task1, task2));
 
             // When
             List<TaskResponse> responses = taskService.findAllTasks();
@@ -422,7 +481,7 @@ class TaskServiceTest {
         @Test
         void shouldReturnEmptyListWhenNoTasksFound() {
             // Given
-            when(taskRepository.findAll()).thenReturn(List.of());
+            when(taskRepository.findAllWithOptions()).thenReturn(List.of());
 
             // When
             List<TaskResponse> responses = taskService.findAllTasks();
@@ -432,4 +491,232 @@ class TaskServiceTest {
             assertTrue(responses.isEmpty());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class PaginationTests {
+
+        @Test
+        void shouldReturnPageWithNextCursorAndBatchedOptions() {
+            // Given
+            Task task1 = new Task(1L, "What is Java?", 1, Type.OPEN_TEXT);
+            task1.setId(10L);
+            Task task2 = new Task(1L, "Choose language", 2, Type.SINGLE_CHOICE);
+            task2.setId(11L);
+            TaskOption option = new TaskOption("Java", true, task2);
+
+            when(taskRepository.findPageAfter(0L, 0L, 0L, Limit.of(2))).thenReturn(List.of(task1, task2));
+            when(taskRepository.findOptionsByTaskIds(List.of(10L, 11L))).thenReturn(List.of(option));
+
+            // When
+            TaskPageResponse page = taskService.findTasksPage(null, null, 2);
+
+            // Then
+            assertEquals(2, page.getItems().size());
+            assertNull(page.getItems().get(0).getOptions());
+            assertEquals(1, page.getItems().get(1).getOptions().size());
+            assertEquals(new TaskCursor(1L, 2048L, 11L, 2), TaskCursor.decode(page.getNextCursor()));
+        }
+
+        @Test
+        void shouldOmitNextCursorOnLastPage() {
+            // Given
+            Task task = new Task(1L, "What is Java?", 3, Type.OPEN_TEXT);
+            task.setId(12L);
+            String after = new TaskCursor(1L, 2048L, 11L, 2).encode();
+
+            when(taskRepository.findCoursePageAfter(1L, 2048L, 11L, Limit.of(5))).thenReturn(List.of(task));
+            when(taskRepository.findOptionsByTaskIds(List.of(12L))).thenReturn(List.of());
+
+            // When
+            TaskPageResponse page = taskService.findTasksPage(1L, after, 5);
+
+            // Then
+            assertEquals(1, page.getItems().size());
+            assertEquals(3, page.getItems().getFirst().getOrder());
+            assertNull(page.getNextCursor());
+        }
+
+        @Test
+        void shouldRejectCursorFromAnotherCourse() {
+            // Given
+            String after = new TaskCursor(2L, 1024L, 5L, 1).encode();
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.findTasksPage(1L, after, 5));
+            assertEquals("Cursor does not belong to course 1", exception.getMessage());
+        }
+
+        @Test
+        void shouldRejectLimitOutOfRange() {
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.findTasksPage(null, null, 0));
+            assertEquals("Limit must be between 1 and 500", exception.getMessage());
+        }
+
+        @Test
+        void shouldStreamTasksInChunksAndDetachThem() {
+            // Given
+            List<Task> tasks = new ArrayList<>();
+            for (long i = 1; i <= TaskService.STREAM_CHUNK_SIZE + 1; i++) {
+                Task task = new Task(1L, "Question " + i, (int) i, Type.OPEN_TEXT);
+                task.setId(i);
+                tasks.add(task);
+            }
+            when(taskRepository.streamByCourseId(1L)).thenReturn(tasks.stream());
+            when(taskRepository.findOptionsByTaskIds(any())).thenReturn(List.of());
+
+            List<TaskResponse> streamed = new ArrayList<>();
+
+            // When
+            taskService.streamTasks(1L, streamed::add);
+
+            // Then
+            assertEquals(tasks.size(), streamed.size());
+            assertEquals("Question 1", streamed.getFirst().getStatement());
+            verify(taskRepository, times(2)).findOptionsByTaskIds(any());
+            verify(entityManager, times(2)).clear();
+        }
+    }
+
+    @Nested
+    class BulkTaskTests {
+
+        private final List<TaskOptionRequest> singleChoiceOptions = List.of(
+                new TaskOptionRequest("Java", true),
+                new TaskOptionRequest("Python", false)
+        );
+
+        private final List<TaskOptionRequest> multipleChoiceOptions = List.of(
+                new TaskOptionRequest("Java", true),
+                new TaskOptionRequest("Spring", true),
+                new TaskOptionRequest("Ruby", false)
+        );
+
+        @Test
+        void shouldCreateMixedTasksAgainstOneSnapshot() {
+            // Given
+            Long courseId = 1L;
+            List<BulkTaskItemRequest> requests = List.of(
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "What did you learn?", 2, null),
+                    new BulkTaskItemRequest(Type.SINGLE_CHOICE, "Which language?", 1, singleChoiceOptions),
+                    new BulkTaskItemRequest(Type.MULTIPLE_CHOICE, "Which technologies?", 5, multipleChoiceOptions)
+            );
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findExistingStatementHashes(eq(courseId), any())).thenReturn(List.of());
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of(
+                    new TaskPosition(7L, 1024L),
+                    new TaskPosition(8L, 2048L)
+            ));
+            when(taskRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            List<TaskResponse> responses = taskService.createTasksInBulk(courseId, requests);
+
+            // Then - sequence is [single, existing 7, open, existing 8, multiple]
+            assertEquals(3, responses.size());
+            assertEquals(3, responses.get(0).getOrder());
+            assertEquals(1, responses.get(1).getOrder());
+            assertEquals(2, responses.get(1).getOptions().size());
+            assertEquals(5, responses.get(2).getOrder());
+
+            // New tasks land in the gaps around the existing ranks, which are left untouched
+            verify(taskRepository).saveAll(savedTasks.capture());
+            assertEquals(List.of(1536L, 512L, 3072L), savedTasks.getValue().stream().map(Task::getRank).toList());
+            verify(taskRepository, never()).findAllById(any());
+            verify(taskRepository, never()).negateRanks(any());
+            verify(courseRepository).incrementTaskCounters(courseId, 1, 1, 1);
+            verify(taskRepository, never()).save(any(Task.class));
+        }
+
+        @Test
+        void shouldRejectDuplicateStatementsWithinTheBatch() {
+            // Given
+            Long courseId = 1L;
+            List<BulkTaskItemRequest> requests = List.of(
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "What did you learn?", 1, null),
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "  What did you learn? ", 2, null)
+            );
+
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findExistingStatementHashes(eq(courseId), any())).thenReturn(List.of());
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of());
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.createTasksInBulk(courseId, requests));
+            assertEquals("Task 2: Course already has a task with this statement", exception.getMessage());
+            verify(taskRepository, never()).saveAll(any());
+        }
+
+        @Test
+        void shouldRejectStatementAlreadyInTheCourse() {
+            // Given
+            Long courseId = 1L;
+            List<BulkTaskItemRequest> requests = List.of(
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "What did you learn?", 1, null)
+            );
+
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findExistingStatementHashes(eq(courseId), any()))
+                    .thenReturn(List.of(StatementHash.of("What did you learn?")));
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of());
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.createTasksInBulk(courseId, requests));
+            assertEquals("Task 1: Course already has a task with this statement", exception.getMessage());
+        }
+
+        @Test
+        void shouldRejectOptionCountOutsideTypeLimits() {
+            // Given
+            Long courseId = 1L;
+            List<BulkTaskItemRequest> requests = List.of(
+                    new BulkTaskItemRequest(Type.MULTIPLE_CHOICE, "Which technologies?", 1, singleChoiceOptions)
+            );
+
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findExistingStatementHashes(eq(courseId), any())).thenReturn(List.of());
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of());
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.createTasksInBulk(courseId, requests));
+            assertEquals("Task 1: Multiple choice task must have between 3 and 5 options", exception.getMessage());
+        }
+
+        @Test
+        void shouldRejectOrderBeyondTheEndOfTheSequence() {
+            // Given
+            Long courseId = 1L;
+            List<BulkTaskItemRequest> requests = List.of(
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "What did you learn?", 1, null),
+                    new BulkTaskItemRequest(Type.OPEN_TEXT, "What else did you learn?", 3, null)
+            );
+
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+            when(taskRepository.findExistingStatementHashes(eq(courseId), any())).thenReturn(List.of());
+            when(taskRepository.findPositionsByCourseId(courseId)).thenReturn(List.of());
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.createTasksInBulk(courseId, requests));
+            assertTrue(exception.getMessage().startsWith("Task 2: Invalid order sequence"));
+        }
+
+        @Test
+        void shouldRejectBulkCreationWhenCourseIsPublished() {
+            // Given
+            Long courseId = 1L;
+            validCourse.setStatus(Status.PUBLISHED);
+            when(courseRepository.findByIdForUpdate(courseId)).thenReturn(Optional.of(validCourse));
+
+            // When & Then
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> taskService.createTasksInBulk(courseId, List.of()));
+            assertEquals("Cannot add tasks to course. Course status must be BUILDING", exception.getMessage());
+        }
+    }
+}
@@ -5,11 +5,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -23,6 +36,9 @@ class UserControllerTest {
     @MockBean
     private UserRepository userRepository;
 
+    @MockBean
+    private UserImportService userImportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -86,15 +102,83 @@ class UserControllerTest {
 
     @Test
     void listAllUsers__should_list_all_users() throws Exception {
-        User user1 = new User("User 1", "user1@test.com",Role.STUDENT);
-        User user2 = new User("User 2", "user2@test.com",Role.STUDENT);
-        when(userRepository.findAll()).thenReturn(Arrays.asList(user1, user2));
+        UserListItemDTO user1 = new UserListItemDTO("User 1", "user1@test.com", Role.STUDENT);
+        UserListItemDTO user2 = new UserListItemDTO("User 2", "user2@test.com", Role.STUDENT);
+        when(userRepository.findListItems(any(Pageable.class))).thenReturn(new SliceImpl<>(Arrays.asList(user1, user2)));
 
         mockMvc.perform(get("/user/all")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name").value("User 1"))
-                .andExpect(jsonPath("$[1].name").value("User 2"));
+                .andExpect(jsonPath("$[1].name").value("User 2"))
+                .andExpect(jsonPath("$[0].password").doesNotExist());
+    }
+
+    @Test
+    void listAllUsers__should_sort_by_the_requested_column_then_by_id() throws Exception {
+        when(userRepository.findListItems(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(get("/user/all")
+                        .param("page", "1")
+                        .param("size", "10")
+                        .param("sort", "name,desc"))
+                .andExpect(status().isOk());
+
+        verify(userRepository).findListItems(PageRequest.of(1, 10, Sort.by(Sort.Order.desc("name"), Sort.Order.asc("id"))));
+    }
+
+    @Test
+    void listAllUsers__should_reject_sorting_by_the_password() throws Exception {
+        mockMvc.perform(get("/user/all")
+                        .param("sort", "password"))
+                .andExpect(status().isBadRequest());
+
+        verify(userRepository, never()).findListItems(any());
+    }
+
+    @Test
+    void importUsers__should_stream_one_result_per_line() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserImportResult> consumer = invocation.getArgument(1);
+            consumer.accept(new UserImportResult(2, "ana@alura.com.br", UserImportResult.Outcome.CREATED, null));
+            consumer.accept(new UserImportResult(3, "ana@alura.com.br", UserImportResult.Outcome.DUPLICATE, "Email já enviado na linha 2"));
+            return null;
+        }).when(userImportService).importUsers(isNull(), any());
+
+        MvcResult result = mockMvc.perform(post("/user/import")
+                        .contentType("text/csv")
+                        .content("name,email,role\nAna Souza,ana@alura.com.br,STUDENT\nAna Souza,ana@alura.com.br,STUDENT\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes((
+                        "{\"line\":2,\"email\":\"ana@alura.com.br\",\"outcome\":\"CREATED\"}\n" +
+                        "{\"line\":3,\"email\":\"ana@alura.com.br\",\"outcome\":\"DUPLICATE\",\"message\":\"Email já enviado na linha 2\"}\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void importUsers__should_return_bad_request_when_the_body_cannot_be_imported() throws Exception {
+        when(userImportService.open(any(), any())).thenThrow(new IllegalArgumentException("CSV header must name the columns [name, email, role], found [name]"));
+
+        mockMvc.perform(post("/user/import")
+                        .contentType("text/csv")
+                        .content("name\nAna Souza\n"))
+                .andExpect(status().isBadRequest());
+
+        verify(userImportService, never()).importUsers(any(), any());
+    }
+
+    @Test
+    void importUsers__should_reject_a_json_array() throws Exception {
+        mockMvc.perform(post("/user/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verify(userImportService, never()).open(any(), any());
     }
 
-}
\ No newline at end of file
+}
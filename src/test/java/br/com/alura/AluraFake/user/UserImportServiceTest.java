@@ -0,0 +1,248 @@
+package br.com.alura.AluraFake.user;
+
+import br.com.alura.AluraFake.user.UserImportResult.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Runs without a test transaction: the import commits a chunk of lines at a time
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserImportServiceTest {
+
+    // Small chunks, so a few lines already span several lookups and batches
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        deleteImportedUsers();
+        userImportService = new UserImportService(jdbcTemplate, transactionManager, entityManagerFactory, validator,
+                objectMapper, CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteImportedUsers();
+    }
+
+    @Test
+    void shouldCreateEveryNewUserFromCsv() {
+        // Given
+        String csv = """
+                email,name,role
+                ana@import.alura.com.br,Ana Souza,STUDENT
+                "bruno@import.alura.com.br","Bruno, o instrutor",INSTRUCTOR
+
+                carla@import.alura.com.br,Carla Lima,STUDENT
+                """;
+
+        // When
+        List<UserImportResult> results = importUsers(csv, UserImportService.TEXT_CSV);
+
+        // Then
+        assertThat(results).containsExactly(
+                new UserImportResult(2, "ana@import.alura.com.br", Outcome.CREATED, null),
+                new UserImportResult(3, "bruno@import.alura.com.br", Outcome.CREATED, null),
+                new UserImportResult(5, "carla@import.alura.com.br", Outcome.CREATED, null));
+        User bruno = userRepository.findByEmail("bruno@import.alura.com.br").orElseThrow();
+        assertThat(bruno.getName()).isEqualTo("Bruno, o instrutor");
+        assertThat(bruno.isInstructor()).isTrue();
+        assertThat(bruno.getPassword()).hasSize(6);
+        assertThat(bruno.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    void shouldReportEmailsAlreadyRegisteredOrRepeatedInTheBody() {
+        // Given
+        userRepository.save(new User("Ana Souza", "ana@import.alura.com.br", Role.STUDENT));
+        String csv = """
+                name,email,role
+                Ana Souza,ana@import.alura.com.br,STUDENT
+                Bruno Reis,bruno@import.alura.com.br,STUDENT
+                Bruno Reis,BRUNO@import.alura.com.br,STUDENT
+                """;
+
+        // When
+        List<UserImportResult> results = importUsers(csv, UserImportService.TEXT_CSV);
+
+        // Then
+        assertThat(results).containsExactly(
+                new UserImportResult(2, "ana@import.alura.com.br", Outcome.EXISTS, "Email já cadastrado no sistema"),
+                new UserImportResult(3, "bruno@import.alura.com.br", Outcome.CREATED, null),
+                new UserImportResult(4, "BRUNO@import.alura.com.br", Outcome.DUPLICATE, "Email já enviado na linha 3"));
+        assertThat(countImportedUsers()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReportAnEmailRegisteredBetweenTheLookupAndTheInsertAsExisting() {
+        // Given - bruno registers while the first chunk is between its lookup and its insert
+        JdbcTemplate racingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            private boolean raced;
+
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                if (!raced) {
+                    raced = true;
+                    registerInAnotherTransaction(new User("Bruno Reis", "bruno@import.alura.com.br", Role.STUDENT));
+                }
+                return super.batchUpdate(sql, batchArgs);
+            }
+        };
+        userImportService = new UserImportService(racingJdbcTemplate, transactionManager, entityManagerFactory, validator,
+                objectMapper, CHUNK_SIZE);
+        String csv = """
+                name,email,role
+                Ana Souza,ana@import.alura.com.br,STUDENT
+                Bruno Reis,bruno@import.alura.com.br,STUDENT
+                Carla Lima,carla@import.alura.com.br,STUDENT
+                """;
+
+        // When
+        List<UserImportResult> results = importUsers(csv, UserImportService.TEXT_CSV);
+
+        // Then - the chunk is looked up again instead of cutting the import off
+        assertThat(results).extracting(UserImportResult::line, UserImportResult::outcome).containsExactly(
+                tuple(2, Outcome.CREATED),
+                tuple(3, Outcome.EXISTS),
+                tuple(4, Outcome.CREATED));
+        assertThat(countImportedUsers()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldFailOnAConflictTheLookupCannotSettle() {
+        // Given - every insert conflicts, though the lookup never finds the email registered
+        JdbcTemplate conflictingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                throw new DuplicateKeyException("Duplicate entry");
+            }
+        };
+        userImportService = new UserImportService(conflictingJdbcTemplate, transactionManager, entityManagerFactory,
+                validator, objectMapper, CHUNK_SIZE);
+
+        // When & Then
+        assertThatThrownBy(() -> importUsers("name,email,role\nAna Souza,ana@import.alura.com.br,STUDENT\n",
+                UserImportService.TEXT_CSV))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(countImportedUsers()).isZero();
+    }
+
+    @Test
+    void shouldReportInvalidLinesAndKeepImporting() {
+        // Given
+        String ndjson = """
+                {"name": "Ana Souza", "email": "ana@import.alura.com.br", "role": "STUDENT"}
+                {"name": "Bruno Reis", "email": "bruno", "role": "STUDENT"}
+                {"name": "Carla Lima", "email": "carla@import.alura.com.br", "role": "ADMIN"}
+                {"name": "Davi
+                {"name": "Eva Rocha", "email": "eva@import.alura.com.br", "role": "INSTRUCTOR"}
+                """;
+
+        // When
+        List<UserImportResult> results = importUsers(ndjson, MediaType.APPLICATION_NDJSON);
+
+        // Then
+        assertThat(results).extracting(UserImportResult::line, UserImportResult::outcome).containsExactly(
+                tuple(1, Outcome.CREATED),
+                tuple(2, Outcome.INVALID),
+                tuple(3, Outcome.INVALID),
+                tuple(4, Outcome.INVALID),
+                tuple(5, Outcome.CREATED));
+        assertThat(results.get(1).message()).startsWith("email: ");
+        assertThat(results.get(2).message()).startsWith("Invalid JSON: ");
+        assertThat(countImportedUsers()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReportUnknownRolesAndMissingColumnsInCsvLines() {
+        // Given
+        String csv = """
+                name,email,role
+                Ana Souza,ana@import.alura.com.br,ADMIN
+                Bruno Reis,bruno@import.alura.com.br
+                Carla Lima,carla@import.alura.com.br,
+                """;
+
+        // When
+        List<UserImportResult> results = importUsers(csv, UserImportService.TEXT_CSV);
+
+        // Then
+        assertThat(results).extracting(UserImportResult::outcome).containsOnly(Outcome.INVALID);
+        assertThat(results.get(0).message()).isEqualTo("role: must be one of [STUDENT, INSTRUCTOR]");
+        assertThat(results.get(1).message()).isEqualTo("Expected 3 columns but found 2");
+        assertThat(results.get(2).message()).startsWith("role: ");
+        assertThat(countImportedUsers()).isZero();
+    }
+
+    @Test
+    void shouldRejectCsvWithoutTheRequiredColumns() {
+        assertThatThrownBy(() -> userImportService.open(body("name,email\nAna Souza,ana@import.alura.com.br\n"), UserImportService.TEXT_CSV))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("[name, email, role]");
+    }
+
+    private List<UserImportResult> importUsers(String content, MediaType contentType) {
+        List<UserImportResult> results = new ArrayList<>();
+        userImportService.importUsers(userImportService.open(body(content), contentType), results::add);
+        return results;
+    }
+
+    private void registerInAnotherTransaction(User user) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNew.executeWithoutResult(status -> userRepository.save(user));
+    }
+
+    private ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long countImportedUsers() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE LOWER(email) LIKE '%@import.alura.com.br'", Long.class);
+    }
+
+    private void deleteImportedUsers() {
+        jdbcTemplate.update("DELETE FROM users WHERE LOWER(email) LIKE '%@import.alura.com.br'");
+    }
+}
@@ -3,11 +3,14 @@ package br.com.alura.AluraFake.user;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.Optional;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @ActiveProfiles("test")
@@ -38,4 +41,19 @@ class UserRepositoryTest {
         assertThat(userRepository.existsByEmail("sergio@alura.com.br")).isFalse();
     }
 
-}
\ No newline at end of file
+    @Test
+    void findListItems__should_return_only_the_requested_page_of_listed_columns() {
+        userRepository.save(new User("Caio", "caio@alura.com.br", Role.STUDENT));
+        userRepository.save(new User("Ana", "ana@alura.com.br", Role.INSTRUCTOR));
+        userRepository.save(new User("Bia", "bia@alura.com.br", Role.STUDENT));
+
+        Slice<UserListItemDTO> firstPage = userRepository.findListItems(PageRequest.of(0, 2, Sort.by("name")));
+        assertThat(firstPage.getContent()).extracting(UserListItemDTO::getName).containsExactly("Ana", "Bia");
+        assertThat(firstPage.hasNext()).isTrue();
+
+        Slice<UserListItemDTO> lastPage = userRepository.findListItems(PageRequest.of(1, 2, Sort.by("name")));
+        assertThat(lastPage.getContent()).extracting(UserListItemDTO::getEmail).containsExactly("caio@alura.com.br");
+        assertThat(lastPage.hasNext()).isFalse();
+    }
+
+}
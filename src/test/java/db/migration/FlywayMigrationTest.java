@@ -0,0 +1,114 @@
+package db.migration;
+
+import br.com.alura.AluraFake.util.StatementHash;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import java.util.List;
+import java.util.UUID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The other tests build their schema with ddl-auto, so only these run the migrations over existing rows: each test
+// migrates a fresh database up to a version, seeds what production may hold at that point, and migrates the rest
+class FlywayMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:migrations-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=LEGACY",
+                "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void shouldSpreadRanksSharedByConcurrentlyCreatedTasksBeforeMakingThemUnique() {
+        // Given - two tasks of the same course created concurrently at the same order, which V5 turns into one rank
+        migrateTo("4");
+        insertCourse(1L);
+        insertTask(10L, 1L, "Primeira", 1);
+        insertTask(11L, 1L, "Segunda", 1);
+        insertTask(12L, 1L, "Terceira", 2);
+
+        // When
+        migrateTo("7");
+
+        // Then - the ranks are unique and keep the order they had, ties broken by id
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM task WHERE course_id = 1 ORDER BY task_rank", Long.class))
+                .containsExactly(10L, 11L, 12L);
+        assertThat(jdbcTemplate.queryForList("SELECT task_rank FROM task WHERE course_id = 1 ORDER BY task_rank", Long.class))
+                .containsExactly(1024L, 2048L, 3072L);
+    }
+
+    @Test
+    void shouldBackfillStatementHashesAsTheApplicationComputesThem() {
+        // Given - the same statement in two courses, which the per-course key allows
+        migrateTo("4");
+        insertCourse(1L);
+        insertCourse(2L);
+        insertTask(10L, 1L, " O que é Java? ", 1);
+        insertTask(20L, 2L, "O que é Java?", 1);
+
+        // When
+        migrateTo("6");
+
+        // Then
+        assertThat(jdbcTemplate.queryForList("SELECT statement_hash FROM task ORDER BY id", String.class))
+                .containsOnly(StatementHash.of("O que é Java?"));
+    }
+
+    @Test
+    void shouldRefuseStatementsThatOnlyDifferInSurroundingWhitespaceBeforeChangingTheSchema() {
+        // Given - allowed by the old key on the raw text, the same once trimmed
+        migrateTo("4");
+        insertCourse(1L);
+        insertTask(10L, 1L, "Foo", 1);
+        insertTask(11L, 1L, "Foo ", 2);
+
+        // When & Then
+        assertThatThrownBy(() -> migrateTo("6"))
+                .isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("course 1: tasks 10 and 11");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'TASK' AND COLUMN_NAME = 'STATEMENT_HASH'",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void shouldMigrateAnEmptyDatabaseToTheLatestVersion() {
+        // When
+        migrateTo("latest");
+
+        // Then
+        List<String> failed = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE NOT \"success\"", String.class);
+        assertThat(failed).isEmpty();
+    }
+
+    private void migrateTo(String version) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(version)
+                .load()
+                .migrate();
+    }
+
+    private void insertCourse(Long id) {
+        jdbcTemplate.update("INSERT INTO Users (id, name, email, role, password) VALUES (?, 'Paulo', ?, 'INSTRUCTOR', '123456')",
+                id, "paulo" + id + "@alura.com.br");
+        jdbcTemplate.update("INSERT INTO Course (id, title, description, instructor_id) VALUES (?, 'Java', 'Aprenda Java', ?)",
+                id, id);
+    }
+
+    // As V3 created the table, before positions became ranks
+    private void insertTask(Long id, Long courseId, String statement, int order) {
+        jdbcTemplate.update("INSERT INTO task (id, course_id, statement, task_order, type) VALUES (?, ?, ?, ?, 'OPEN_TEXT')",
+                id, courseId, statement, order);
+    }
+}
@@ -1,4 +1,5 @@
 SET REFERENTIAL_INTEGRITY FALSE;
+TRUNCATE TABLE course_snapshot;
 TRUNCATE TABLE task_option;
 TRUNCATE TABLE task;
 TRUNCATE TABLE course;